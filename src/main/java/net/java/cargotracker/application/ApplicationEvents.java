@@ -1,6 +1,7 @@
 package net.java.cargotracker.application;
 
-import net.java.cargotracker.domain.model.cargo.Cargo;
+import java.util.List;
+import net.java.cargotracker.application.projection.CargoStatusSnapshot;
 import net.java.cargotracker.domain.model.handling.HandlingEvent;
 import net.java.cargotracker.interfaces.handling.HandlingEventRegistrationAttempt;
 
@@ -14,9 +15,11 @@ public interface ApplicationEvents {
 
     void cargoWasHandled(HandlingEvent event);
 
-    void cargoWasMisdirected(Cargo cargo);
+    void cargosWereHandled(List<HandlingEvent> events);
 
-    void cargoHasArrived(Cargo cargo);
+    void cargoWasMisdirected(CargoStatusSnapshot cargo);
+
+    void cargoHasArrived(CargoStatusSnapshot cargo);
 
     void receivedHandlingEventRegistrationAttempt(HandlingEventRegistrationAttempt attempt);
 }
\ No newline at end of file
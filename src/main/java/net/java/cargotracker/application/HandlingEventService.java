@@ -1,11 +1,14 @@
 package net.java.cargotracker.application;
 
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import net.java.cargotracker.domain.model.cargo.TrackingId;
 import net.java.cargotracker.domain.model.handling.CannotCreateHandlingEventException;
 import net.java.cargotracker.domain.model.handling.HandlingEvent;
 import net.java.cargotracker.domain.model.location.UnLocode;
 import net.java.cargotracker.domain.model.voyage.VoyageNumber;
+import net.java.cargotracker.interfaces.handling.HandlingEventRegistrationAttempt;
 
 public interface HandlingEventService {
 
@@ -18,4 +21,15 @@ public interface HandlingEventService {
             VoyageNumber voyageNumber,
             UnLocode unLocode,
             HandlingEvent.Type type) throws CannotCreateHandlingEventException;
+
+    /**
+     * Registers many handling events at once, and notifies interested parties
+     * of all cargos that have been handled in one go. Attempts that can't be
+     * registered don't keep the others from being registered.
+     *
+     * @return The attempts that could not be registered, with the reason. Empty
+     * if all attempts were registered.
+     */
+    Map<HandlingEventRegistrationAttempt, CannotCreateHandlingEventException> registerHandlingEvents(
+            List<HandlingEventRegistrationAttempt> attempts);
 }
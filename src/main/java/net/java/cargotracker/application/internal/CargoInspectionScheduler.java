@@ -0,0 +1,162 @@
+package net.java.cargotracker.application.internal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Timeout;
+import javax.ejb.Timer;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.inject.Inject;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import net.java.cargotracker.application.CargoInspectionService;
+import net.java.cargotracker.domain.model.cargo.TrackingId;
+
+/**
+ * Coalesces cargo inspections. An inspection requested for a cargo that
+ * already has one pending is dropped, and a pending inspection is run once the
+ * inspection window has passed, so a burst of handling events for the same
+ * cargo leads to a single inspection.
+ * <p/>
+ * Every pending inspection is a persistent timer of its own, created in the
+ * transaction of the request. The request and its inspection are thus either
+ * both kept or both dropped, and a pending inspection survives a restart. The
+ * inspection runs in the transaction of the timeout, so a failed inspection is
+ * retried by the timer service. Timeouts of different cargos run in parallel.
+ * <p/>
+ * A cargo is reserved as pending before its timer is created, so concurrent
+ * requests for the same cargo create a single timer. The reservation is
+ * released if the requesting transaction rolls back, and requests coalesced
+ * with it in the meantime are then left to the next request for the cargo. A
+ * cargo is no longer pending as soon as its inspection starts, so events
+ * registered while it runs are picked up by another inspection.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class CargoInspectionScheduler {
+
+    private static final Logger logger = Logger.getLogger(
+            CargoInspectionScheduler.class.getName());
+    @Resource(name = "inspectionWindow")
+    private Integer inspectionWindow = 500;
+    @Resource
+    private TimerService timerService;
+    @Resource
+    private TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+    @Inject
+    private CargoInspectionService cargoInspectionService;
+    private final ConcurrentMap<TrackingId, Boolean> pending
+            = new ConcurrentHashMap<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong inspectionCount = new AtomicLong();
+
+    /**
+     * Picks up the inspections left pending before a restart.
+     */
+    @PostConstruct
+    public void loadPending() {
+        for (Timer timer : timerService.getTimers()) {
+            pending.put(new TrackingId((String) timer.getInfo()), Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Requests an inspection of the cargo within the inspection window, as
+     * part of the current transaction. With a window of zero the cargo is
+     * inspected right away.
+     */
+    public void scheduleInspection(final TrackingId trackingId) {
+        requestCount.incrementAndGet();
+
+        if (inspectionWindow <= 0) {
+            inspect(trackingId);
+            return;
+        }
+
+        if (pending.putIfAbsent(trackingId, Boolean.TRUE) != null) {
+            coalescedCount.incrementAndGet();
+            return;
+        }
+
+        // A rolled back transaction drops the timer, and with it the reservation.
+        transactionSynchronizationRegistry.registerInterposedSynchronization(
+                new Synchronization() {
+                    @Override
+                    public void beforeCompletion() {
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status != Status.STATUS_COMMITTED) {
+                            pending.remove(trackingId, Boolean.TRUE);
+                        }
+                    }
+                });
+        timerService.createSingleActionTimer(inspectionWindow,
+                new TimerConfig(trackingId.getIdString(), true));
+    }
+
+    /**
+     * Runs a pending inspection.
+     */
+    @Timeout
+    public void inspectPending(Timer timer) {
+        TrackingId trackingId = new TrackingId((String) timer.getInfo());
+        pending.remove(trackingId);
+        inspect(trackingId);
+    }
+
+    private void inspect(TrackingId trackingId) {
+        inspectionCount.incrementAndGet();
+        cargoInspectionService.inspectCargo(trackingId);
+        logger.log(Level.FINE, "Inspected cargo {0}, {1}",
+                new Object[]{trackingId.getIdString(), this});
+    }
+
+    /**
+     * @return Number of cargos with an inspection pending.
+     */
+    public int getQueueDepth() {
+        return pending.size();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getInspectionCount() {
+        return inspectionCount.get();
+    }
+
+    /**
+     * @return Share of requested inspections that were coalesced with a
+     * pending one, 0 if none were requested.
+     */
+    public double getDedupRatio() {
+        long requests = requestCount.get();
+
+        return requests == 0 ? 0 : (double) coalescedCount.get() / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CargoInspectionScheduler{requests=" + getRequestCount()
+                + ", coalesced=" + getCoalescedCount()
+                + ", inspections=" + getInspectionCount()
+                + ", queueDepth=" + getQueueDepth() + "}";
+    }
+}
@@ -3,14 +3,19 @@ package net.java.cargotracker.application.internal;
 import net.java.cargotracker.infrastructure.events.cdi.CargoInspected;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Resource;
 import javax.ejb.Stateless;
 import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import net.java.cargotracker.application.ApplicationEvents;
 import net.java.cargotracker.application.CargoInspectionService;
+import net.java.cargotracker.application.projection.CargoStatusProjection;
+import net.java.cargotracker.application.projection.CargoStatusSnapshot;
 import net.java.cargotracker.domain.model.cargo.Cargo;
 import net.java.cargotracker.domain.model.cargo.CargoRepository;
+import net.java.cargotracker.domain.model.cargo.Delivery;
 import net.java.cargotracker.domain.model.cargo.TrackingId;
+import net.java.cargotracker.domain.model.handling.HandlingEvent;
 import net.java.cargotracker.domain.model.handling.HandlingEventRepository;
 import net.java.cargotracker.domain.model.handling.HandlingHistory;
 
@@ -23,10 +28,14 @@ public class DefaultCargoInspectionService implements CargoInspectionService {
     private CargoRepository cargoRepository;
     @Inject
     private HandlingEventRepository handlingEventRepository;
+    // Recalculates the delivery from the complete handling history as well,
+    // meant for tests.
+    @Resource(name = "verifyDeliveryProgress")
+    private Boolean verifyDeliveryProgress = false;
 
     @Inject
     @CargoInspected
-    private Event<Cargo> cargoInspected;
+    private Event<CargoStatusSnapshot> cargoInspected;
 
     private static final Logger logger = Logger.getLogger(
             DefaultCargoInspectionService.class.getName());
@@ -40,21 +49,47 @@ public class DefaultCargoInspectionService implements CargoInspectionService {
             return;
         }
 
-        HandlingHistory handlingHistory = handlingEventRepository
-                .lookupHandlingHistoryOfCargo(trackingId);
+        // The delivery only depends on the most recently completed event.
+        HandlingEvent lastEvent = handlingEventRepository
+                .lookupMostRecentlyCompletedEvent(trackingId);
 
-        cargo.deriveDeliveryProgress(handlingHistory);
+        if (lastEvent == null) {
+            cargo.deriveDeliveryProgress(HandlingHistory.EMPTY);
+        } else {
+            cargo.deriveDeliveryProgress(lastEvent);
+        }
+
+        if (verifyDeliveryProgress) {
+            verifyDeliveryProgress(cargo);
+        }
+
+        // Taken once, while the cargo can still be navigated, and shared by
+        // everyone told about the inspection.
+        CargoStatusSnapshot snapshot = CargoStatusSnapshot.of(
+                new CargoStatusProjection(cargo));
 
-        if (cargo.getDelivery().isMisdirected()) {
-            applicationEvents.cargoWasMisdirected(cargo);
+        if (snapshot.isMisdirected()) {
+            applicationEvents.cargoWasMisdirected(snapshot);
         }
 
-        if (cargo.getDelivery().isUnloadedAtDestination()) {
-            applicationEvents.cargoHasArrived(cargo);
+        if (snapshot.isUnloadedAtDestination()) {
+            applicationEvents.cargoHasArrived(snapshot);
         }
 
         cargoRepository.store(cargo);
 
-        cargoInspected.fire(cargo);
+        cargoInspected.fire(snapshot);
+    }
+
+    private void verifyDeliveryProgress(Cargo cargo) {
+        Delivery delivery = cargo.getDelivery();
+        cargo.deriveDeliveryProgress(handlingEventRepository
+                .lookupHandlingHistoryOfCargo(cargo.getTrackingId()));
+
+        if (!delivery.sameProgressAs(cargo.getDelivery())) {
+            throw new IllegalStateException("Delivery of cargo "
+                    + cargo.getTrackingId() + " derived from its last event"
+                    + " differs from the one derived from its history");
+        }
     }
 }
@@ -1,18 +1,36 @@
 package net.java.cargotracker.application.internal;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.ejb.Stateless;
 import javax.inject.Inject;
 import net.java.cargotracker.application.ApplicationEvents;
 import net.java.cargotracker.application.HandlingEventService;
+import net.java.cargotracker.domain.model.cargo.Cargo;
+import net.java.cargotracker.domain.model.cargo.CargoRepository;
 import net.java.cargotracker.domain.model.cargo.TrackingId;
 import net.java.cargotracker.domain.model.handling.CannotCreateHandlingEventException;
 import net.java.cargotracker.domain.model.handling.HandlingEvent;
 import net.java.cargotracker.domain.model.handling.HandlingEventFactory;
 import net.java.cargotracker.domain.model.handling.HandlingEventRepository;
+import net.java.cargotracker.domain.model.handling.UnknownCargoException;
+import net.java.cargotracker.domain.model.handling.UnknownLocationException;
+import net.java.cargotracker.domain.model.handling.UnknownVoyageException;
+import net.java.cargotracker.domain.model.location.Location;
+import net.java.cargotracker.domain.model.location.LocationRepository;
 import net.java.cargotracker.domain.model.location.UnLocode;
+import net.java.cargotracker.domain.model.voyage.Voyage;
 import net.java.cargotracker.domain.model.voyage.VoyageNumber;
+import net.java.cargotracker.domain.model.voyage.VoyageRepository;
+import net.java.cargotracker.interfaces.handling.HandlingEventRegistrationAttempt;
 
 @Stateless
 public class DefaultHandlingEventService implements HandlingEventService {
@@ -23,6 +41,12 @@ public class DefaultHandlingEventService implements HandlingEventService {
     private HandlingEventRepository handlingEventRepository;
     @Inject
     private HandlingEventFactory handlingEventFactory;
+    @Inject
+    private CargoRepository cargoRepository;
+    @Inject
+    private VoyageRepository voyageRepository;
+    @Inject
+    private LocationRepository locationRepository;
     private static final Logger logger = Logger.getLogger(
             DefaultHandlingEventService.class.getName());
 
@@ -48,4 +72,97 @@ public class DefaultHandlingEventService implements HandlingEventService {
 
         logger.info("Registered handling event");
     }
+
+    @Override
+    public Map<HandlingEventRegistrationAttempt, CannotCreateHandlingEventException> registerHandlingEvents(
+            List<HandlingEventRegistrationAttempt> attempts) {
+        Date registrationTime = new Date();
+
+        /* The cargos, voyages and locations of all attempts are looked up at
+         once instead of three queries per attempt. */
+        Set<TrackingId> trackingIds = new HashSet<>();
+        Set<VoyageNumber> voyageNumbers = new HashSet<>();
+        Set<UnLocode> unLocodes = new HashSet<>();
+
+        for (HandlingEventRegistrationAttempt attempt : attempts) {
+            trackingIds.add(attempt.getTrackingId());
+            unLocodes.add(attempt.getUnLocode());
+
+            if (attempt.getVoyageNumber() != null) {
+                voyageNumbers.add(attempt.getVoyageNumber());
+            }
+        }
+
+        Map<TrackingId, Cargo> cargos = new HashMap<>();
+
+        for (Cargo cargo : cargoRepository.findAll(trackingIds)) {
+            cargos.put(cargo.getTrackingId(), cargo);
+        }
+
+        Map<VoyageNumber, Voyage> voyages = new HashMap<>();
+
+        for (Voyage voyage : voyageRepository.findAll(voyageNumbers)) {
+            voyages.put(voyage.getVoyageNumber(), voyage);
+        }
+
+        Map<UnLocode, Location> locations = new HashMap<>();
+
+        for (Location location : locationRepository.findAll(unLocodes)) {
+            locations.put(location.getUnLocode(), location);
+        }
+
+        List<HandlingEvent> events = new ArrayList<>(attempts.size());
+        Map<HandlingEventRegistrationAttempt, CannotCreateHandlingEventException> failures
+                = new LinkedHashMap<>();
+
+        for (HandlingEventRegistrationAttempt attempt : attempts) {
+            try {
+                events.add(createHandlingEvent(registrationTime, attempt,
+                        cargos, voyages, locations));
+            } catch (CannotCreateHandlingEventException e) {
+                failures.put(attempt, e);
+            }
+        }
+
+        handlingEventRepository.storeAll(events);
+        applicationEvents.cargosWereHandled(events);
+
+        logger.log(Level.INFO,
+                "Registered {0} handling events, rejected {1} attempts",
+                new Object[]{events.size(), failures.size()});
+
+        return failures;
+    }
+
+    private HandlingEvent createHandlingEvent(Date registrationTime,
+            HandlingEventRegistrationAttempt attempt,
+            Map<TrackingId, Cargo> cargos, Map<VoyageNumber, Voyage> voyages,
+            Map<UnLocode, Location> locations)
+            throws CannotCreateHandlingEventException {
+        Cargo cargo = cargos.get(attempt.getTrackingId());
+
+        if (cargo == null) {
+            throw new UnknownCargoException(attempt.getTrackingId());
+        }
+
+        Voyage voyage = null;
+
+        if (attempt.getVoyageNumber() != null) {
+            voyage = voyages.get(attempt.getVoyageNumber());
+
+            if (voyage == null) {
+                throw new UnknownVoyageException(attempt.getVoyageNumber());
+            }
+        }
+
+        Location location = locations.get(attempt.getUnLocode());
+
+        if (location == null) {
+            throw new UnknownLocationException(attempt.getUnLocode());
+        }
+
+        return handlingEventFactory.createHandlingEvent(registrationTime,
+                attempt.getCompletionTime(), cargo, voyage, location,
+                attempt.getType());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package net.java.cargotracker.application.projection;
+
+import java.io.Serializable;
+import java.util.Date;
+import net.java.cargotracker.domain.model.cargo.RoutingStatus;
+import net.java.cargotracker.domain.model.cargo.TransportStatus;
+
+/**
+ * Criteria for listing cargo statuses. Criteria that aren't set don't
+ * restrict the listing, so a new filter matches every cargo.
+ */
+public class CargoStatusFilter implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private RoutingStatus routingStatus;
+    private TransportStatus transportStatus;
+    private Boolean routed;
+    private Boolean claimed;
+    private Boolean misdirected;
+    private Date calculatedSince;
+
+    public CargoStatusFilter routingStatus(RoutingStatus routingStatus) {
+        this.routingStatus = routingStatus;
+        return this;
+    }
+
+    public CargoStatusFilter transportStatus(TransportStatus transportStatus) {
+        this.transportStatus = transportStatus;
+        return this;
+    }
+
+    /**
+     * @param routed true for cargos that have been assigned a route, whether
+     * or not it satisfies the route specification
+     */
+    public CargoStatusFilter routed(boolean routed) {
+        this.routed = routed;
+        return this;
+    }
+
+    public CargoStatusFilter claimed(boolean claimed) {
+        this.claimed = claimed;
+        return this;
+    }
+
+    public CargoStatusFilter misdirected(boolean misdirected) {
+        this.misdirected = misdirected;
+        return this;
+    }
+
+    /**
+     * @param calculatedSince matches cargos whose delivery was calculated at
+     * or after this time. Cargos calculated in the very same millisecond are
+     * included so that a client passing the latest time it has seen doesn't
+     * miss a change made right after it read.
+     */
+    public CargoStatusFilter calculatedSince(Date calculatedSince) {
+        this.calculatedSince = calculatedSince == null ? null
+                : new Date(calculatedSince.getTime());
+        return this;
+    }
+
+    /**
+     * @return The routing status to match, or null for any.
+     */
+    public RoutingStatus getRoutingStatus() {
+        return routingStatus;
+    }
+
+    /**
+     * @return The transport status to match, or null for any.
+     */
+    public TransportStatus getTransportStatus() {
+        return transportStatus;
+    }
+
+    public Boolean getRouted() {
+        return routed;
+    }
+
+    public Boolean getClaimed() {
+        return claimed;
+    }
+
+    public Boolean getMisdirected() {
+        return misdirected;
+    }
+
+    /**
+     * @return The earliest calculation time to match, or null for any.
+     */
+    public Date getCalculatedSince() {
+        return calculatedSince == null ? null
+                : new Date(calculatedSince.getTime());
+    }
+
+    @Override
+    public String toString() {
+        return "CargoStatusFilter{" + "routingStatus=" + routingStatus
+                + ", transportStatus=" + transportStatus + ", routed=" + routed
+                + ", claimed=" + claimed + ", misdirected=" + misdirected
+                + ", calculatedSince=" + calculatedSince + "}";
+    }
+}
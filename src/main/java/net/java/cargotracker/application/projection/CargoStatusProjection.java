@@ -0,0 +1,186 @@
+package net.java.cargotracker.application.projection;
+
+import java.io.Serializable;
+import java.util.Date;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.validation.constraints.NotNull;
+import net.java.cargotracker.domain.model.cargo.Cargo;
+import net.java.cargotracker.domain.model.cargo.Delivery;
+import net.java.cargotracker.domain.model.cargo.RoutingStatus;
+import net.java.cargotracker.domain.model.cargo.TransportStatus;
+import net.java.cargotracker.domain.model.location.Location;
+
+/**
+ * Flat, denormalized status of a cargo, one row per cargo. Listing it doesn't
+ * touch the itinerary, delivery, location or voyage tables.
+ * <p/>
+ * The row is replaced whenever the cargo is stored, so it is as up to date as
+ * the delivery of the cargo.
+ */
+@Entity
+@Table(name = "cargo_status", indexes = {
+    @Index(columnList = "routing_status, tracking_id"),
+    @Index(columnList = "transport_status, tracking_id"),
+    @Index(columnList = "misdirected, tracking_id"),
+    @Index(columnList = "calculated_at")})
+@NamedQueries({
+    @NamedQuery(name = "CargoStatusProjection.findAll",
+            query = "Select c from CargoStatusProjection c order by c.trackingId"),
+    @NamedQuery(name = "CargoStatusProjection.findLatestCalculatedAt",
+            query = "Select max(c.calculatedAt) from CargoStatusProjection c")})
+public class CargoStatusProjection implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    @Id
+    @Column(name = "tracking_id")
+    private String trackingId;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "routing_status")
+    @NotNull
+    private RoutingStatus routingStatus;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transport_status")
+    @NotNull
+    private TransportStatus transportStatus;
+    @NotNull
+    private boolean misdirected;
+    @Column(name = "unloaded_at_dest")
+    @NotNull
+    private boolean unloadedAtDestination;
+    @Column(name = "origin_unlocode")
+    @NotNull
+    private String originUnLocode;
+    @Column(name = "origin_name")
+    @NotNull
+    private String originName;
+    @Column(name = "destination_unlocode")
+    @NotNull
+    private String destinationUnLocode;
+    @Column(name = "destination_name")
+    @NotNull
+    private String destinationName;
+    @Column(name = "last_known_unlocode")
+    @NotNull
+    private String lastKnownLocationUnLocode;
+    @Column(name = "last_known_name")
+    @NotNull
+    private String lastKnownLocationName;
+    @Temporal(TemporalType.DATE)
+    @Column(name = "arrival_deadline")
+    @NotNull
+    private Date arrivalDeadline;
+    @Temporal(TemporalType.DATE)
+    private Date eta;
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "calculated_at")
+    @NotNull
+    private Date calculatedAt;
+
+    public CargoStatusProjection() {
+        // Nothing to initialize.
+    }
+
+    public CargoStatusProjection(Cargo cargo) {
+        Delivery delivery = cargo.getDelivery();
+        Location origin = cargo.getOrigin();
+        Location destination = cargo.getRouteSpecification().getDestination();
+        Location lastKnownLocation = delivery.getLastKnownLocation();
+
+        this.trackingId = cargo.getTrackingId().getIdString();
+        this.routingStatus = delivery.getRoutingStatus();
+        this.transportStatus = delivery.getTransportStatus();
+        this.misdirected = delivery.isMisdirected();
+        this.unloadedAtDestination = delivery.isUnloadedAtDestination();
+        this.originUnLocode = origin.getUnLocode().getIdString();
+        this.originName = origin.getName();
+        this.destinationUnLocode = destination.getUnLocode().getIdString();
+        this.destinationName = destination.getName();
+        this.lastKnownLocationUnLocode = lastKnownLocation.getUnLocode()
+                .getIdString();
+        this.lastKnownLocationName = lastKnownLocation.getName();
+        this.arrivalDeadline = cargo.getRouteSpecification()
+                .getArrivalDeadline();
+        this.eta = delivery.getEstimatedTimeOfArrival();
+        this.calculatedAt = delivery.getCalculatedAt();
+    }
+
+    public String getTrackingId() {
+        return trackingId;
+    }
+
+    public RoutingStatus getRoutingStatus() {
+        return routingStatus;
+    }
+
+    public TransportStatus getTransportStatus() {
+        return transportStatus;
+    }
+
+    public boolean isMisdirected() {
+        return misdirected;
+    }
+
+    public boolean isUnloadedAtDestination() {
+        return unloadedAtDestination;
+    }
+
+    public String getOriginUnLocode() {
+        return originUnLocode;
+    }
+
+    public String getOriginName() {
+        return originName;
+    }
+
+    public String getDestinationUnLocode() {
+        return destinationUnLocode;
+    }
+
+    public String getDestinationName() {
+        return destinationName;
+    }
+
+    /**
+     * @return UN/LOCODE of the last known location, the one of
+     * {@link Location#UNKNOWN} if the cargo hasn't been handled yet.
+     */
+    public String getLastKnownLocationUnLocode() {
+        return lastKnownLocationUnLocode;
+    }
+
+    public String getLastKnownLocationName() {
+        return lastKnownLocationName;
+    }
+
+    public Date getArrivalDeadline() {
+        return new Date(arrivalDeadline.getTime());
+    }
+
+    /**
+     * @return Estimated time of arrival, or null if it is unknown.
+     */
+    public Date getEstimatedTimeOfArrival() {
+        return eta == null ? null : new Date(eta.getTime());
+    }
+
+    public Date getCalculatedAt() {
+        return new Date(calculatedAt.getTime());
+    }
+
+    @Override
+    public String toString() {
+        return "CargoStatusProjection{" + "trackingId=" + trackingId
+                + ", routingStatus=" + routingStatus + ", transportStatus="
+                + transportStatus + ", misdirected=" + misdirected + "}";
+    }
+}
@@ -0,0 +1,32 @@
+package net.java.cargotracker.application.projection;
+
+import java.util.Date;
+import java.util.List;
+
+public interface CargoStatusProjectionRepository {
+
+    /**
+     * @return The status of every cargo, ordered by tracking id.
+     */
+    List<CargoStatusProjection> findAll();
+
+    /**
+     * @return The time the most recently calculated delivery was calculated
+     * at, or null if there are no cargos. It changes whenever any cargo status
+     * does, so it serves as a version of the cargo statuses as a whole.
+     */
+    Date findLatestCalculatedAt();
+
+    /**
+     * Lists cargo statuses one page at a time. Pages are found by tracking id
+     * rather than by offset, so every page costs the same.
+     *
+     * @param filter criteria the cargos must match
+     * @param afterTrackingId tracking id of the last cargo on the previous
+     * page, or null for the first page
+     * @param maxResults page size
+     * @return Matching cargo statuses, ordered by tracking id.
+     */
+    List<CargoStatusProjection> find(CargoStatusFilter filter,
+            String afterTrackingId, int maxResults);
+}
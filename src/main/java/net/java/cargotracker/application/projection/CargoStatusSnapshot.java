@@ -0,0 +1,170 @@
+package net.java.cargotracker.application.projection;
+
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+import net.java.cargotracker.domain.model.cargo.RoutingStatus;
+import net.java.cargotracker.domain.model.cargo.TransportStatus;
+
+/**
+ * Immutable status of a cargo as of an inspection, taken from its
+ * {@link CargoStatusProjection}. Everything is copied out when the snapshot
+ * is taken, inside the inspection transaction, so the snapshot can be handed
+ * to other threads and read after the transaction without touching the
+ * persistence context.
+ * <p/>
+ * The JSON form is written the first time it is asked for and then shared by
+ * everyone publishing the update:
+ * <pre>
+ * {"trackingId": "ABC123", "routingStatus": "ROUTED",
+ *  "transportStatus": "ONBOARD_CARRIER", "misdirected": false,
+ *  "atDestination": false, "origin": "Hongkong", "destination": "New York",
+ *  "lastKnownLocation": "Hamburg", "calculatedAt": 1388534400000}
+ * </pre>
+ * Locations are given by name.
+ */
+public final class CargoStatusSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final String trackingId;
+    private final RoutingStatus routingStatus;
+    private final TransportStatus transportStatus;
+    private final boolean misdirected;
+    private final boolean unloadedAtDestination;
+    private final String originUnLocode;
+    private final String originName;
+    private final String destinationUnLocode;
+    private final String destinationName;
+    private final String lastKnownLocationUnLocode;
+    private final String lastKnownLocationName;
+    private final long calculatedAt;
+    // Written at most a few times when raced, always to the same value.
+    private transient volatile String json;
+    private transient volatile byte[] bytes;
+
+    private CargoStatusSnapshot(CargoStatusProjection projection) {
+        this.trackingId = projection.getTrackingId();
+        this.routingStatus = projection.getRoutingStatus();
+        this.transportStatus = projection.getTransportStatus();
+        this.misdirected = projection.isMisdirected();
+        this.unloadedAtDestination = projection.isUnloadedAtDestination();
+        this.originUnLocode = projection.getOriginUnLocode();
+        this.originName = projection.getOriginName();
+        this.destinationUnLocode = projection.getDestinationUnLocode();
+        this.destinationName = projection.getDestinationName();
+        this.lastKnownLocationUnLocode = projection
+                .getLastKnownLocationUnLocode();
+        this.lastKnownLocationName = projection.getLastKnownLocationName();
+        this.calculatedAt = projection.getCalculatedAt().getTime();
+    }
+
+    /**
+     * @return The snapshot of the status the projection holds.
+     */
+    public static CargoStatusSnapshot of(CargoStatusProjection projection) {
+        return new CargoStatusSnapshot(projection);
+    }
+
+    public String getTrackingId() {
+        return trackingId;
+    }
+
+    public RoutingStatus getRoutingStatus() {
+        return routingStatus;
+    }
+
+    public TransportStatus getTransportStatus() {
+        return transportStatus;
+    }
+
+    public boolean isMisdirected() {
+        return misdirected;
+    }
+
+    public boolean isUnloadedAtDestination() {
+        return unloadedAtDestination;
+    }
+
+    public String getOriginUnLocode() {
+        return originUnLocode;
+    }
+
+    public String getOriginName() {
+        return originName;
+    }
+
+    public String getDestinationUnLocode() {
+        return destinationUnLocode;
+    }
+
+    public String getDestinationName() {
+        return destinationName;
+    }
+
+    public String getLastKnownLocationUnLocode() {
+        return lastKnownLocationUnLocode;
+    }
+
+    public String getLastKnownLocationName() {
+        return lastKnownLocationName;
+    }
+
+    public Date getCalculatedAt() {
+        return new Date(calculatedAt);
+    }
+
+    /**
+     * @return The snapshot as a JSON object.
+     */
+    public String toJson() {
+        String result = json;
+
+        if (result == null) {
+            StringWriter writer = new StringWriter(256);
+
+            try (JsonGenerator generator = Json.createGenerator(writer)) {
+                generator.writeStartObject()
+                        .write("trackingId", trackingId)
+                        .write("routingStatus", routingStatus.toString())
+                        .write("transportStatus", transportStatus.toString())
+                        .write("misdirected", misdirected)
+                        .write("atDestination", unloadedAtDestination)
+                        .write("origin", originName)
+                        .write("destination", destinationName)
+                        .write("lastKnownLocation", lastKnownLocationName)
+                        .write("calculatedAt", calculatedAt)
+                        .writeEnd();
+            }
+
+            result = writer.toString();
+            json = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The JSON form encoded as UTF-8. Not to be modified, the array is
+     * shared.
+     */
+    public byte[] toBytes() {
+        byte[] result = bytes;
+
+        if (result == null) {
+            result = toJson().getBytes(StandardCharsets.UTF_8);
+            bytes = result;
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CargoStatusSnapshot{" + "trackingId=" + trackingId
+                + ", routingStatus=" + routingStatus + ", transportStatus="
+                + transportStatus + ", misdirected=" + misdirected + "}";
+    }
+}
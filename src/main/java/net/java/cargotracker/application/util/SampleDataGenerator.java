@@ -12,6 +12,7 @@ import javax.ejb.TransactionAttributeType;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import net.java.cargotracker.application.projection.CargoStatusProjection;
 import net.java.cargotracker.domain.model.cargo.Cargo;
 import net.java.cargotracker.domain.model.cargo.Itinerary;
 import net.java.cargotracker.domain.model.cargo.Leg;
@@ -22,8 +23,10 @@ import net.java.cargotracker.domain.model.handling.HandlingEvent;
 import net.java.cargotracker.domain.model.handling.HandlingEventFactory;
 import net.java.cargotracker.domain.model.handling.HandlingEventRepository;
 import net.java.cargotracker.domain.model.handling.HandlingHistory;
+import net.java.cargotracker.domain.model.location.LocationRepository;
 import net.java.cargotracker.domain.model.location.SampleLocations;
 import net.java.cargotracker.domain.model.voyage.SampleVoyages;
+import net.java.cargotracker.domain.model.voyage.VoyageRepository;
 
 /**
  * Loads sample data for demo.
@@ -41,6 +44,10 @@ public class SampleDataGenerator {
     private HandlingEventFactory handlingEventFactory;
     @Inject
     private HandlingEventRepository handlingEventRepository;
+    @Inject
+    private LocationRepository locationRepository;
+    @Inject
+    private VoyageRepository voyageRepository;
 
     @PostConstruct
     @TransactionAttribute(TransactionAttributeType.REQUIRED)
@@ -50,6 +57,7 @@ public class SampleDataGenerator {
         loadSampleLocations();
         loadSampleVoyages();
         loadSampleCargos();
+        loadCargoStatusProjections();
     }
 
     private void unLoadAll() {
@@ -67,6 +75,8 @@ public class SampleDataGenerator {
 
         // Delete all entities
         // TODO See why cascade delete is not working.
+        entityManager.createQuery("Delete from CargoStatusProjection")
+                .executeUpdate();
         entityManager.createQuery("Delete from HandlingEvent").executeUpdate();
         entityManager.createQuery("Delete from Leg").executeUpdate();
         entityManager.createQuery("Delete from Cargo").executeUpdate();
@@ -78,29 +88,32 @@ public class SampleDataGenerator {
     private void loadSampleLocations() {
         logger.info("Loading sample locations.");
 
-        entityManager.persist(SampleLocations.HONGKONG);
-        entityManager.persist(SampleLocations.MELBOURNE);
-        entityManager.persist(SampleLocations.STOCKHOLM);
-        entityManager.persist(SampleLocations.HELSINKI);
-        entityManager.persist(SampleLocations.CHICAGO);
-        entityManager.persist(SampleLocations.TOKYO);
-        entityManager.persist(SampleLocations.HAMBURG);
-        entityManager.persist(SampleLocations.SHANGHAI);
-        entityManager.persist(SampleLocations.ROTTERDAM);
-        entityManager.persist(SampleLocations.GOTHENBURG);
-        entityManager.persist(SampleLocations.HANGZOU);
-        entityManager.persist(SampleLocations.NEWYORK);
-        entityManager.persist(SampleLocations.DALLAS);
+        // Through the repository, like the voyages.
+        locationRepository.store(SampleLocations.HONGKONG);
+        locationRepository.store(SampleLocations.MELBOURNE);
+        locationRepository.store(SampleLocations.STOCKHOLM);
+        locationRepository.store(SampleLocations.HELSINKI);
+        locationRepository.store(SampleLocations.CHICAGO);
+        locationRepository.store(SampleLocations.TOKYO);
+        locationRepository.store(SampleLocations.HAMBURG);
+        locationRepository.store(SampleLocations.SHANGHAI);
+        locationRepository.store(SampleLocations.ROTTERDAM);
+        locationRepository.store(SampleLocations.GOTHENBURG);
+        locationRepository.store(SampleLocations.HANGZOU);
+        locationRepository.store(SampleLocations.NEWYORK);
+        locationRepository.store(SampleLocations.DALLAS);
     }
 
     private void loadSampleVoyages() {
         logger.info("Loading sample voyages.");
 
-        entityManager.persist(SampleVoyages.HONGKONG_TO_NEW_YORK);
-        entityManager.persist(SampleVoyages.NEW_YORK_TO_DALLAS);
-        entityManager.persist(SampleVoyages.DALLAS_TO_HELSINKI);
-        entityManager.persist(SampleVoyages.HELSINKI_TO_HONGKONG);
-        entityManager.persist(SampleVoyages.DALLAS_TO_HELSINKI_ALT);
+        // Through the repository, so whatever depends on the schedules is
+        // told about them.
+        voyageRepository.store(SampleVoyages.HONGKONG_TO_NEW_YORK);
+        voyageRepository.store(SampleVoyages.NEW_YORK_TO_DALLAS);
+        voyageRepository.store(SampleVoyages.DALLAS_TO_HELSINKI);
+        voyageRepository.store(SampleVoyages.HELSINKI_TO_HONGKONG);
+        voyageRepository.store(SampleVoyages.DALLAS_TO_HELSINKI_ALT);
     }
 
     private void loadSampleCargos() {
@@ -297,4 +310,14 @@ public class SampleDataGenerator {
             throw new RuntimeException(e);
         }
     }
+
+    private void loadCargoStatusProjections() {
+        logger.info("Loading cargo status projections.");
+
+        // The sample cargos are persisted directly, not through the repository.
+        for (Cargo cargo : entityManager.createNamedQuery("Cargo.findAll",
+                Cargo.class).getResultList()) {
+            entityManager.merge(new CargoStatusProjection(cargo));
+        }
+    }
 }
@@ -96,7 +96,9 @@ import org.apache.commons.lang3.Validate;
     @NamedQuery(name = "Cargo.findAll",
             query = "Select c from Cargo c"),
     @NamedQuery(name = "Cargo.findByTrackingId",
-            query = "Select c from Cargo c where c.trackingId = :trackingId")})
+            query = "Select c from Cargo c where c.trackingId = :trackingId"),
+    @NamedQuery(name = "Cargo.findByTrackingIds",
+            query = "Select c from Cargo c where c.trackingId.id in :trackingIds")})
 public class Cargo implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -209,6 +211,19 @@ public class Cargo implements Serializable {
                 handlingHistory);
     }
 
+    /**
+     * Updates the delivery progress with a newly registered handling event,
+     * instead of deriving it from the complete handling history. Gives the
+     * same progress as {@link #deriveDeliveryProgress(HandlingHistory)},
+     * provided the current delivery already reflects all earlier events.
+     *
+     * @param handlingEvent newly registered handling event
+     */
+    public void deriveDeliveryProgress(HandlingEvent handlingEvent) {
+        this.delivery = delivery.updateOnHandling(handlingEvent,
+                getRouteSpecification(), getItinerary());
+    }
+
     /**
      * @param object to compare
      * @return True if they have the same identity
@@ -1,5 +1,6 @@
 package net.java.cargotracker.domain.model.cargo;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CargoRepository {
@@ -8,6 +9,12 @@ public interface CargoRepository {
 
     List<Cargo> findAll();
 
+    /**
+     * @return The cargos with the given tracking ids, looked up at once.
+     * Cargos that don't exist are left out.
+     */
+    List<Cargo> findAll(Collection<TrackingId> trackingIds);
+
     void store(Cargo cargo);
 
     TrackingId nextTrackingId();
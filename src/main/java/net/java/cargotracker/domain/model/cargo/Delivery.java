@@ -120,6 +120,30 @@ public class Delivery implements Serializable {
         return new Delivery(lastEvent, itinerary, routeSpecification);
     }
 
+    /**
+     * Creates a new delivery snapshot to reflect a newly registered handling
+     * event, without the rest of the handling history. The delivery only
+     * depends on the most recently completed event, so an event that was
+     * completed before the last known one doesn't change the progress.
+     *
+     * @param handlingEvent newly registered handling event
+     * @param routeSpecification route specification
+     * @param itinerary itinerary
+     * @return An up to date delivery.
+     */
+    Delivery updateOnHandling(HandlingEvent handlingEvent,
+            RouteSpecification routeSpecification, Itinerary itinerary) {
+        Validate.notNull(handlingEvent, "Handling event is required");
+        Validate.notNull(routeSpecification, "Route specification is required");
+
+        if (this.lastEvent != null && handlingEvent.getCompletionTime()
+                .before(this.lastEvent.getCompletionTime())) {
+            return new Delivery(this.lastEvent, itinerary, routeSpecification);
+        }
+
+        return new Delivery(handlingEvent, itinerary, routeSpecification);
+    }
+
     public TransportStatus getTransportStatus() {
         return transportStatus;
     }
@@ -337,7 +361,12 @@ public class Delivery implements Serializable {
         return routingStatus.equals(ROUTED) && !misdirected;
     }
 
-    private boolean sameValueAs(Delivery other) {
+    /**
+     * @param other delivery to compare
+     * @return True if both deliveries describe the same progress, regardless
+     * of when they were calculated.
+     */
+    public boolean sameProgressAs(Delivery other) {
         return other != null
                 && new EqualsBuilder()
                 .append(this.transportStatus, other.transportStatus)
@@ -350,10 +379,14 @@ public class Delivery implements Serializable {
                 .append(this.isUnloadedAtDestination,
                         other.isUnloadedAtDestination)
                 .append(this.routingStatus, other.routingStatus)
-                .append(this.calculatedAt, other.calculatedAt)
                 .append(this.lastEvent, other.lastEvent).isEquals();
     }
 
+    private boolean sameValueAs(Delivery other) {
+        return sameProgressAs(other)
+                && this.calculatedAt.equals(other.calculatedAt);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
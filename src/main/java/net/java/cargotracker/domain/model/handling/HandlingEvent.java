@@ -9,9 +9,12 @@ import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 import javax.validation.constraints.NotNull;
@@ -45,8 +48,14 @@ import org.apache.commons.lang3.builder.HashCodeBuilder;
  * {@link Type#CUSTOMS}.
  */
 @Entity
-@NamedQuery(name = "HandlingEvent.findByTrackingId",
-        query = "Select e from HandlingEvent e where e.cargo.trackingId = :trackingId")
+@Table(indexes = @Index(columnList = "cargo_id, completionTime"))
+@NamedQueries({
+    @NamedQuery(name = "HandlingEvent.findByTrackingId",
+            query = "Select e from HandlingEvent e where e.cargo.trackingId = :trackingId "
+            + "order by e.completionTime, e.id"),
+    @NamedQuery(name = "HandlingEvent.findMostRecentlyCompletedByTrackingId",
+            query = "Select e from HandlingEvent e where e.cargo.trackingId = :trackingId "
+            + "order by e.completionTime desc, e.id desc")})
 public class HandlingEvent implements Serializable {
 
     private static final long serialVersionUID = 1L;
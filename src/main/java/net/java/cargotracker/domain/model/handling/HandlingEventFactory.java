@@ -49,6 +49,21 @@ public class HandlingEventFactory implements Serializable {
         Voyage voyage = findVoyage(voyageNumber);
         Location location = findLocation(unlocode);
 
+        return createHandlingEvent(registrationTime, completionTime, cargo,
+                voyage, location, type);
+    }
+
+    /**
+     * Creates a handling event from references that have already been looked
+     * up, for example for many events at once.
+     *
+     * @param voyage voyage, or null if the event is not tied to a voyage
+     * @throws CannotCreateHandlingEventException if the event is not valid
+     * @return A handling event.
+     */
+    public HandlingEvent createHandlingEvent(Date registrationTime,
+            Date completionTime, Cargo cargo, Voyage voyage, Location location,
+            HandlingEvent.Type type) throws CannotCreateHandlingEventException {
         try {
             if (voyage == null) {
                 return new HandlingEvent(cargo, completionTime,
@@ -1,10 +1,22 @@
 package net.java.cargotracker.domain.model.handling;
 
+import java.util.List;
 import net.java.cargotracker.domain.model.cargo.TrackingId;
 
 public interface HandlingEventRepository {
 
     void store(HandlingEvent event);
 
+    /**
+     * Stores the events at once, so they can be inserted in batches.
+     */
+    void storeAll(List<HandlingEvent> events);
+
     HandlingHistory lookupHandlingHistoryOfCargo(TrackingId trackingId);
+
+    /**
+     * @return The most recently completed event of the cargo, or null if it
+     * hasn't been handled yet.
+     */
+    HandlingEvent lookupMostRecentlyCompletedEvent(TrackingId trackingId);
 }
@@ -4,14 +4,41 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+
+import net.java.cargotracker.domain.model.location.Location;
 
 import org.apache.commons.lang3.Validate;
 
+/**
+ * The handling events of a cargo. Duplicate registrations are removed and the
+ * events are ordered by completion time once, when the history is created, so
+ * the most recently completed event is found in constant time and events
+ * completed within a period by binary search. Events completed at the same
+ * time keep the order they were given in, which is the order of registration
+ * when the history comes from the repository.
+ */
 public class HandlingHistory {
 
     private final List<HandlingEvent> handlingEvents;
+    private final List<HandlingEvent> distinctEvents;
+    private final long[] completionTimes;
+    private final Map<HandlingEvent.Type, List<HandlingEvent>> eventsByType
+            = new EnumMap<>(HandlingEvent.Type.class);
+    private final Map<Location, List<HandlingEvent>> eventsByLocation
+            = new HashMap<>();
+    // Declared before EMPTY, which is sorted on creation.
+    private static final Comparator<HandlingEvent> BY_COMPLETION_TIME_COMPARATOR = new Comparator<HandlingEvent>() {
+        @Override
+        public int compare(HandlingEvent he1, HandlingEvent he2) {
+            return he1.getCompletionTime().compareTo(he2.getCompletionTime());
+        }
+    };
     // Null object pattern.
     public static final HandlingHistory EMPTY = new HandlingHistory(
             Collections.<HandlingEvent>emptyList());
@@ -20,6 +47,21 @@ public class HandlingHistory {
         Validate.notNull(handlingEvents, "Handling events are required");
 
         this.handlingEvents = new ArrayList<>(handlingEvents);
+
+        // Stable, and linear if the events are already ordered.
+        List<HandlingEvent> ordered = new ArrayList<>(new LinkedHashSet<>(
+                handlingEvents));
+        Collections.sort(ordered, BY_COMPLETION_TIME_COMPARATOR);
+        this.distinctEvents = Collections.unmodifiableList(ordered);
+
+        this.completionTimes = new long[ordered.size()];
+
+        for (int i = 0; i < ordered.size(); i++) {
+            HandlingEvent event = ordered.get(i);
+            completionTimes[i] = event.getCompletionTime().getTime();
+            index(eventsByType, event.getType(), event);
+            index(eventsByLocation, event.getLocation(), event);
+        }
     }
 
     public List<HandlingEvent> getAllHandlingEvents() {
@@ -31,11 +73,7 @@ public class HandlingHistory {
      * ordered by completion time.
      */
     public List<HandlingEvent> getDistinctEventsByCompletionTime() {
-        List<HandlingEvent> ordered = new ArrayList<>(new HashSet<>(
-                handlingEvents));
-        Collections.sort(ordered, BY_COMPLETION_TIME_COMPARATOR);
-
-        return Collections.unmodifiableList(ordered);
+        return distinctEvents;
     }
 
     /**
@@ -43,8 +81,6 @@ public class HandlingHistory {
      * empty.
      */
     public HandlingEvent getMostRecentlyCompletedEvent() {
-        List<HandlingEvent> distinctEvents = getDistinctEventsByCompletionTime();
-
         if (distinctEvents.isEmpty()) {
             return null;
         } else {
@@ -52,6 +88,74 @@ public class HandlingHistory {
         }
     }
 
+    /**
+     * @param from start of the period, inclusive
+     * @param to end of the period, exclusive
+     * @return Distinct events completed within the period, ordered by
+     * completion time.
+     */
+    public List<HandlingEvent> getEventsCompletedBetween(Date from, Date to) {
+        Validate.notNull(from, "Start of period is required");
+        Validate.notNull(to, "End of period is required");
+
+        int fromIndex = firstCompletedAtOrAfter(from.getTime());
+        int toIndex = Math.max(fromIndex,
+                firstCompletedAtOrAfter(to.getTime()));
+
+        return distinctEvents.subList(fromIndex, toIndex);
+    }
+
+    /**
+     * @return Distinct events of the type, ordered by completion time.
+     */
+    public List<HandlingEvent> getEventsOfType(HandlingEvent.Type type) {
+        return unmodifiable(eventsByType.get(type));
+    }
+
+    /**
+     * @return Distinct events at the location, ordered by completion time.
+     */
+    public List<HandlingEvent> getEventsAt(Location location) {
+        return unmodifiable(eventsByLocation.get(location));
+    }
+
+    private static List<HandlingEvent> unmodifiable(List<HandlingEvent> events) {
+        if (events == null) {
+            return Collections.emptyList();
+        } else {
+            return Collections.unmodifiableList(events);
+        }
+    }
+
+    private static <K> void index(Map<K, List<HandlingEvent>> index, K key,
+            HandlingEvent event) {
+        List<HandlingEvent> events = index.get(key);
+
+        if (events == null) {
+            events = new ArrayList<>();
+            index.put(key, events);
+        }
+
+        events.add(event);
+    }
+
+    private int firstCompletedAtOrAfter(long time) {
+        int low = 0;
+        int high = completionTimes.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (completionTimes[middle] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
     private boolean sameValueAs(HandlingHistory other) {
         return other != null
                 && this.handlingEvents.equals(other.handlingEvents);
@@ -74,11 +178,4 @@ public class HandlingHistory {
     public int hashCode() {
         return handlingEvents.hashCode();
     }
-
-    private static final Comparator<HandlingEvent> BY_COMPLETION_TIME_COMPARATOR = new Comparator<HandlingEvent>() {
-        @Override
-        public int compare(HandlingEvent he1, HandlingEvent he2) {
-            return he1.getCompletionTime().compareTo(he2.getCompletionTime());
-        }
-    };
 }
@@ -1,5 +1,6 @@
 package net.java.cargotracker.domain.model.location;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface LocationRepository {
@@ -7,4 +8,15 @@ public interface LocationRepository {
     Location find(UnLocode unLocode);
 
     List<Location> findAll();
+
+    /**
+     * @return The locations with the given UN/LOCODEs, looked up at once.
+     * Locations that don't exist are left out.
+     */
+    List<Location> findAll(Collection<UnLocode> unLocodes);
+
+    /**
+     * Saves a new or changed location.
+     */
+    void store(Location location);
 }
@@ -1,6 +1,22 @@
 package net.java.cargotracker.domain.model.voyage;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface VoyageRepository {
 
     Voyage find(VoyageNumber voyageNumber);
+
+    List<Voyage> findAll();
+
+    /**
+     * @return The voyages with the given voyage numbers, looked up at once.
+     * Voyages that don't exist are left out.
+     */
+    List<Voyage> findAll(Collection<VoyageNumber> voyageNumbers);
+
+    /**
+     * Saves a new or changed voyage, including its schedule.
+     */
+    void store(Voyage voyage);
 }
@@ -1,6 +1,7 @@
 package net.java.cargotracker.domain.service;
 
 import java.util.List;
+import java.util.concurrent.Future;
 import net.java.cargotracker.domain.model.cargo.Itinerary;
 import net.java.cargotracker.domain.model.cargo.RouteSpecification;
 
@@ -12,4 +13,15 @@ public interface RoutingService {
      * empty list if no route is found.
      */
     List<Itinerary> fetchRoutesForSpecification(RouteSpecification routeSpecification);
+
+    /**
+     * Like {@link #fetchRoutesForSpecification(RouteSpecification)}, but
+     * returns without waiting for the routes to be found.
+     *
+     * @param routeSpecification route specification
+     * @return The itineraries that satisfy the specification, once they are
+     * found. Fails if the routes can't be fetched.
+     */
+    Future<List<Itinerary>> fetchRoutesForSpecificationAsync(
+            RouteSpecification routeSpecification);
 }
@@ -0,0 +1,18 @@
+package net.java.cargotracker.infrastructure.events.cdi;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import javax.inject.Qualifier;
+
+/**
+ * Fired once per transaction that added, changed or removed voyage schedules,
+ * with the first voyage stored.
+ */
+@Qualifier
+@Retention(RUNTIME)
+@Target({FIELD, PARAMETER})
+public @interface VoyagesChanged {
+}
@@ -9,7 +9,7 @@ import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.MessageListener;
 import javax.jms.TextMessage;
-import net.java.cargotracker.application.CargoInspectionService;
+import net.java.cargotracker.application.internal.CargoInspectionScheduler;
 import net.java.cargotracker.domain.model.cargo.TrackingId;
 
 /**
@@ -17,7 +17,8 @@ import net.java.cargotracker.domain.model.cargo.TrackingId;
  * tracking service.
  *
  * This is a programmatic hook into the JMS infrastructure to make cargo
- * inspection message-driven.
+ * inspection message-driven. Inspections are scheduled rather than run right
+ * away, so bursts of events for the same cargo lead to one inspection.
  */
 @MessageDriven(activationConfig = {
     @ActivationConfigProperty(propertyName = "destinationType", 
@@ -28,7 +29,7 @@ import net.java.cargotracker.domain.model.cargo.TrackingId;
 public class CargoHandledConsumer implements MessageListener {
 
     @Inject
-    private CargoInspectionService cargoInspectionService;
+    private CargoInspectionScheduler cargoInspectionScheduler;
     private static final Logger logger = Logger.getLogger(
             CargoHandledConsumer.class.getName());
 
@@ -38,7 +39,8 @@ public class CargoHandledConsumer implements MessageListener {
             TextMessage textMessage = (TextMessage) message;
             String trackingIdString = textMessage.getText();
 
-            cargoInspectionService.inspectCargo(new TrackingId(trackingIdString));
+            cargoInspectionScheduler.scheduleInspection(
+                    new TrackingId(trackingIdString));
         } catch (JMSException e) {
             logger.log(Level.SEVERE, "Error procesing JMS message", e);
         }
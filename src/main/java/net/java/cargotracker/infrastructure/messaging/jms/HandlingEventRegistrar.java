@@ -0,0 +1,39 @@
+package net.java.cargotracker.infrastructure.messaging.jms;
+
+import java.util.List;
+import java.util.Map;
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+import net.java.cargotracker.application.HandlingEventService;
+import net.java.cargotracker.domain.model.handling.CannotCreateHandlingEventException;
+import net.java.cargotracker.interfaces.handling.HandlingEventRegistrationAttempt;
+
+/**
+ * Registers handling events in transactions of their own, so a failure rolls
+ * back the registration but not the receipt of the messages it came from.
+ */
+@Stateless
+public class HandlingEventRegistrar {
+
+    @Inject
+    private HandlingEventService handlingEventService;
+
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public Map<HandlingEventRegistrationAttempt, CannotCreateHandlingEventException> registerAll(
+            List<HandlingEventRegistrationAttempt> attempts) {
+        return handlingEventService.registerHandlingEvents(attempts);
+    }
+
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public void register(HandlingEventRegistrationAttempt attempt)
+            throws CannotCreateHandlingEventException {
+        handlingEventService.registerHandlingEvent(
+                attempt.getCompletionTime(),
+                attempt.getTrackingId(),
+                attempt.getVoyageNumber(),
+                attempt.getUnLocode(),
+                attempt.getType());
+    }
+}
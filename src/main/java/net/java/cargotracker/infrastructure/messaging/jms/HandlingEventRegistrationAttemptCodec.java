@@ -0,0 +1,211 @@
+package net.java.cargotracker.infrastructure.messaging.jms;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import net.java.cargotracker.domain.model.cargo.TrackingId;
+import net.java.cargotracker.domain.model.handling.HandlingEvent;
+import net.java.cargotracker.domain.model.location.UnLocode;
+import net.java.cargotracker.domain.model.voyage.VoyageNumber;
+import net.java.cargotracker.interfaces.handling.HandlingEventRegistrationAttempt;
+
+/**
+ * Fixed layout binary format for handling event registration attempts, used
+ * instead of Java serialization on the registration attempt queue. An attempt
+ * usually takes 38 bytes:
+ * <pre>
+ * byte  format version
+ * long  registration time, epoch milliseconds
+ * long  completion time, epoch milliseconds
+ * byte  handling event type, ordinal
+ * int   UN/LOCODE, packed
+ * long  tracking id, packed
+ * long  voyage number, packed, 0 if there is none
+ * </pre>
+ * UN/LOCODEs always fit into an int. Tracking ids and voyage numbers of up to
+ * ten letters and digits are packed into a long with six bits per character;
+ * any other value is written as -1 followed by its length as a short and its
+ * UTF-8 bytes.
+ * <p/>
+ * The handling event type is stored as its ordinal, so new types must be
+ * added at the end of the enum.
+ */
+public final class HandlingEventRegistrationAttemptCodec {
+
+    public static final byte FORMAT_VERSION = 1;
+    private static final long NONE = 0;
+    private static final long NOT_PACKED = -1;
+    private static final String ALPHABET
+            = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final int MAX_PACKED_LENGTH = 10;
+    private static final int BITS_PER_CHARACTER = 6;
+    private static final int CHARACTER_MASK = (1 << BITS_PER_CHARACTER) - 1;
+    // Valid characters of the country and location parts of a UN/LOCODE.
+    private static final String COUNTRY_ALPHABET
+            = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final String LOCATION_ALPHABET
+            = COUNTRY_ALPHABET + "23456789";
+    private static final int COUNTRY_LENGTH = 2;
+    private static final int UN_LOCODE_LENGTH = 5;
+    private static final int FIXED_SIZE = 1 + 8 + 8 + 1 + 4 + 8 + 8;
+    private static final HandlingEvent.Type[] TYPES = HandlingEvent.Type.values();
+
+    private HandlingEventRegistrationAttemptCodec() {
+        // Only static helpers
+    }
+
+    public static byte[] encode(HandlingEventRegistrationAttempt attempt) {
+        String trackingId = attempt.getTrackingId().getIdString();
+        String voyageNumber = attempt.getVoyageNumber() == null ? null
+                : attempt.getVoyageNumber().getIdString();
+        long trackingIdCode = packCode(trackingId);
+        long voyageNumberCode = voyageNumber == null ? NONE
+                : packCode(voyageNumber);
+        byte[] trackingIdBytes = unpackedBytes(trackingIdCode, trackingId);
+        byte[] voyageNumberBytes = unpackedBytes(voyageNumberCode,
+                voyageNumber);
+
+        ByteBuffer buffer = ByteBuffer.allocate(FIXED_SIZE
+                + trackingIdBytes.length + voyageNumberBytes.length);
+        buffer.put(FORMAT_VERSION)
+                .putLong(attempt.getRegistrationTime().getTime())
+                .putLong(attempt.getCompletionTime().getTime())
+                .put((byte) attempt.getType().ordinal())
+                .putInt(packUnLocode(attempt.getUnLocode().getIdString()))
+                .putLong(trackingIdCode)
+                .put(trackingIdBytes)
+                .putLong(voyageNumberCode)
+                .put(voyageNumberBytes);
+
+        return buffer.array();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a registration
+     * attempt of a supported format version
+     */
+    public static HandlingEventRegistrationAttempt decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        try {
+            return decode(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException(
+                    "Malformed registration attempt", e);
+        }
+    }
+
+    private static HandlingEventRegistrationAttempt decode(ByteBuffer buffer) {
+        byte version = buffer.get();
+
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException(
+                    "Unsupported registration attempt format version "
+                    + version);
+        }
+
+        Date registrationTime = new Date(buffer.getLong());
+        Date completionTime = new Date(buffer.getLong());
+        HandlingEvent.Type type = TYPES[buffer.get()];
+        UnLocode unLocode = new UnLocode(unpackUnLocode(buffer.getInt()));
+        TrackingId trackingId = new TrackingId(getCode(buffer));
+        String voyageNumber = getCode(buffer);
+
+        return new HandlingEventRegistrationAttempt(registrationTime,
+                completionTime, trackingId,
+                voyageNumber == null ? null : new VoyageNumber(voyageNumber),
+                type, unLocode);
+    }
+
+    static int packUnLocode(String unLocode) {
+        int code = 0;
+
+        for (int i = 0; i < UN_LOCODE_LENGTH; i++) {
+            String alphabet = i < COUNTRY_LENGTH ? COUNTRY_ALPHABET
+                    : LOCATION_ALPHABET;
+            code = code * alphabet.length()
+                    + alphabet.indexOf(unLocode.charAt(i));
+        }
+
+        return code;
+    }
+
+    static String unpackUnLocode(int code) {
+        char[] characters = new char[UN_LOCODE_LENGTH];
+
+        for (int i = UN_LOCODE_LENGTH - 1; i >= 0; i--) {
+            String alphabet = i < COUNTRY_LENGTH ? COUNTRY_ALPHABET
+                    : LOCATION_ALPHABET;
+            characters[i] = alphabet.charAt(code % alphabet.length());
+            code /= alphabet.length();
+        }
+
+        return new String(characters);
+    }
+
+    /**
+     * @return The value packed with six bits per character, one-based so the
+     * code is never 0, or -1 if the value can't be packed.
+     */
+    static long packCode(String value) {
+        if (value.isEmpty() || value.length() > MAX_PACKED_LENGTH) {
+            return NOT_PACKED;
+        }
+
+        long code = 0;
+
+        for (int i = 0; i < value.length(); i++) {
+            int index = ALPHABET.indexOf(value.charAt(i));
+
+            if (index < 0) {
+                return NOT_PACKED;
+            }
+
+            code = (code << BITS_PER_CHARACTER) | (index + 1);
+        }
+
+        return code;
+    }
+
+    static String unpackCode(long code) {
+        StringBuilder value = new StringBuilder(MAX_PACKED_LENGTH);
+
+        for (; code != 0; code >>>= BITS_PER_CHARACTER) {
+            value.append(ALPHABET.charAt((int) (code & CHARACTER_MASK) - 1));
+        }
+
+        return value.reverse().toString();
+    }
+
+    /**
+     * @return The length prefixed UTF-8 bytes that follow a code, if any.
+     */
+    private static byte[] unpackedBytes(long code, String value) {
+        if (code != NOT_PACKED) {
+            return new byte[0];
+        }
+
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+
+        return ByteBuffer.allocate(2 + utf8.length)
+                .putShort((short) utf8.length).put(utf8).array();
+    }
+
+    private static String getCode(ByteBuffer buffer) {
+        long code = buffer.getLong();
+
+        if (code == NONE) {
+            return null;
+        }
+
+        if (code != NOT_PACKED) {
+            return unpackCode(code);
+        }
+
+        byte[] utf8 = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(utf8);
+
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -1,8 +1,18 @@
 package net.java.cargotracker.infrastructure.messaging.jms;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Resource;
 import javax.ejb.ActivationConfigProperty;
 import javax.ejb.MessageDriven;
 import javax.inject.Inject;
+import javax.jms.BytesMessage;
+import javax.jms.Destination;
+import javax.jms.JMSConsumer;
+import javax.jms.JMSContext;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.MessageListener;
@@ -14,6 +24,19 @@ import net.java.cargotracker.interfaces.handling.HandlingEventRegistrationAttemp
 /**
  * Consumes handling event registration attempt messages and delegates to proper
  * registration.
+ * <p/>
+ * With a maximum batch size above one, every delivered message is followed by
+ * draining further messages from the queue, until the batch is full or the
+ * maximum wait has passed, and all of them are registered together, in a
+ * transaction separate from the one receiving the messages. Messages that can't be registered are then passed
+ * on to the rejected registration attempts queue one by one instead of failing
+ * the batch. Should the batch fail as a whole, its attempts are registered one
+ * at a time, each in a transaction of its own, so only the attempts that fail
+ * by themselves are rejected and the others aren't redelivered.
+ * <p/>
+ * Attempts are expected in the binary format of
+ * {@link HandlingEventRegistrationAttemptCodec}; serialized attempts are still
+ * accepted so messages queued before an upgrade are not lost.
  */
 @MessageDriven(activationConfig = {
     @ActivationConfigProperty(propertyName = "destinationType",
@@ -23,17 +46,33 @@ import net.java.cargotracker.interfaces.handling.HandlingEventRegistrationAttemp
 })
 public class HandlingEventRegistrationAttemptConsumer implements MessageListener {
 
+    private static final String REJECTION_REASON_PROPERTY = "rejectionReason";
     @Inject
     private HandlingEventService handlingEventService;
-//    private static final Logger logger = Logger.getLogger(
-//            HandlingEventRegistrationAttemptConsumer.class.getName());
+    @Inject
+    private HandlingEventRegistrar registrar;
+    @Inject
+    private JMSContext jmsContext;
+    @Resource(lookup = "java:global/jms/HandlingEventRegistrationAttemptQueue")
+    private Destination handlingEventQueue;
+    @Resource(lookup = "java:global/jms/RejectedRegistrationAttemptsQueue")
+    private Destination rejectedRegistrationAttemptsQueue;
+    @Resource(name = "maxBatchSize")
+    private Integer maxBatchSize = 1;
+    @Resource(name = "maxBatchWait")
+    private Integer maxBatchWait = 100;
+    private static final Logger logger = Logger.getLogger(
+            HandlingEventRegistrationAttemptConsumer.class.getName());
 
     @Override
     public void onMessage(Message message) {
+        if (maxBatchSize > 1) {
+            onMessages(drain(message));
+            return;
+        }
+
         try {
-            ObjectMessage objectMessage = (ObjectMessage) message;
-            HandlingEventRegistrationAttempt attempt
-                    = (HandlingEventRegistrationAttempt) objectMessage.getObject();
+            HandlingEventRegistrationAttempt attempt = toAttempt(message);
             handlingEventService.registerHandlingEvent(
                     attempt.getCompletionTime(),
                     attempt.getTrackingId(),
@@ -43,8 +82,95 @@ public class HandlingEventRegistrationAttemptConsumer implements MessageListener
         } catch (JMSException | CannotCreateHandlingEventException e) {
             // Poison messages will be placed on dead-letter queue.
             throw new RuntimeException("Error occurred processing message", e);
-//        } catch (JMSException e) {
-            // logger.log(Level.SEVERE, e.getMessage(), e);
         }
     }
+
+    /**
+     * @return The delivered message followed by the messages received within
+     * the maximum wait, up to the maximum batch size.
+     */
+    private List<Message> drain(Message first) {
+        List<Message> messages = new ArrayList<>(maxBatchSize);
+        messages.add(first);
+        long deadline = System.currentTimeMillis() + maxBatchWait;
+
+        try (JMSConsumer consumer = jmsContext.createConsumer(
+                handlingEventQueue)) {
+            while (messages.size() < maxBatchSize) {
+                long remaining = deadline - System.currentTimeMillis();
+                Message next = remaining > 0 ? consumer.receive(remaining)
+                        : consumer.receiveNoWait();
+
+                if (next == null) {
+                    break;
+                }
+
+                messages.add(next);
+            }
+        }
+
+        return messages;
+    }
+
+    private void onMessages(List<Message> messages) {
+        List<HandlingEventRegistrationAttempt> attempts
+                = new ArrayList<>(messages.size());
+
+        for (Message message : messages) {
+            try {
+                attempts.add(toAttempt(message));
+            } catch (JMSException | ClassCastException
+                    | IllegalArgumentException e) {
+                logger.log(Level.WARNING, "Rejecting unreadable message", e);
+                jmsContext.createProducer()
+                        .send(rejectedRegistrationAttemptsQueue, message);
+            }
+        }
+
+        try {
+            for (Map.Entry<HandlingEventRegistrationAttempt, CannotCreateHandlingEventException> failure
+                    : registrar.registerAll(attempts).entrySet()) {
+                reject(failure.getKey(), failure.getValue());
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Batch of " + attempts.size()
+                    + " registration attempts failed, registering them one by one",
+                    e);
+            registerOneByOne(attempts);
+        }
+
+        logger.log(Level.FINE, "Processed batch of {0} registration attempts",
+                messages.size());
+    }
+
+    private void registerOneByOne(List<HandlingEventRegistrationAttempt> attempts) {
+        for (HandlingEventRegistrationAttempt attempt : attempts) {
+            try {
+                registrar.register(attempt);
+            } catch (CannotCreateHandlingEventException | RuntimeException e) {
+                reject(attempt, e);
+            }
+        }
+    }
+
+    private void reject(HandlingEventRegistrationAttempt attempt, Exception e) {
+        logger.log(Level.WARNING, "Rejecting registration attempt {0}: {1}",
+                new Object[]{attempt, e.getMessage()});
+        jmsContext.createProducer()
+                .setProperty(REJECTION_REASON_PROPERTY,
+                        String.valueOf(e.getMessage()))
+                .send(rejectedRegistrationAttemptsQueue,
+                        HandlingEventRegistrationAttemptCodec.encode(attempt));
+    }
+
+    private HandlingEventRegistrationAttempt toAttempt(Message message)
+            throws JMSException {
+        if (message instanceof BytesMessage) {
+            return HandlingEventRegistrationAttemptCodec.decode(
+                    message.getBody(byte[].class));
+        }
+
+        return (HandlingEventRegistrationAttempt) ((ObjectMessage) message)
+                .getObject();
+    }
 }
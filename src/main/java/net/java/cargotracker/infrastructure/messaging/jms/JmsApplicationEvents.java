@@ -1,6 +1,9 @@
 package net.java.cargotracker.infrastructure.messaging.jms;
 
 import java.io.Serializable;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Resource;
@@ -8,7 +11,9 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.jms.Destination;
 import javax.jms.JMSContext;
+import javax.jms.JMSProducer;
 import net.java.cargotracker.application.ApplicationEvents;
+import net.java.cargotracker.application.projection.CargoStatusSnapshot;
 import net.java.cargotracker.domain.model.cargo.Cargo;
 import net.java.cargotracker.domain.model.handling.HandlingEvent;
 import net.java.cargotracker.interfaces.handling.HandlingEventRegistrationAttempt;
@@ -42,26 +47,53 @@ public class JmsApplicationEvents implements ApplicationEvents, Serializable {
                         cargo.getTrackingId().getIdString());
     }
 
+    /**
+     * Sends one message per cargo with a single producer, in the transaction
+     * of the caller. A cargo handled several times is inspected only once.
+     */
     @Override
-    public void cargoWasMisdirected(Cargo cargo) {
+    public void cargosWereHandled(List<HandlingEvent> events) {
+        JMSProducer producer = jmsContext.createProducer()
+                .setPriority(LOW_PRIORITY)
+                .setDisableMessageID(true)
+                .setDisableMessageTimestamp(true);
+        Set<String> trackingIds = new HashSet<>();
+
+        for (HandlingEvent event : events) {
+            String trackingId = event.getCargo().getTrackingId().getIdString();
+
+            if (trackingIds.add(trackingId)) {
+                producer.send(cargoHandledQueue, trackingId);
+            }
+        }
+
+        logger.log(Level.INFO, "{0} cargos were handled", trackingIds.size());
+    }
+
+    /**
+     * Sends the JSON form of the snapshot, as a bytes message.
+     */
+    @Override
+    public void cargoWasMisdirected(CargoStatusSnapshot cargo) {
         logger.log(Level.INFO, "Cargo was misdirected {0}", cargo);
         jmsContext.createProducer()
                 .setPriority(LOW_PRIORITY)
                 .setDisableMessageID(true)
                 .setDisableMessageTimestamp(true)
-                .send(misdirectedCargoQueue,
-                        cargo.getTrackingId().getIdString());
+                .send(misdirectedCargoQueue, cargo.toBytes());
     }
 
+    /**
+     * Sends the JSON form of the snapshot, as a bytes message.
+     */
     @Override
-    public void cargoHasArrived(Cargo cargo) {
+    public void cargoHasArrived(CargoStatusSnapshot cargo) {
         logger.log(Level.INFO, "Cargo has arrived {0}", cargo);
         jmsContext.createProducer()
                 .setPriority(LOW_PRIORITY)
                 .setDisableMessageID(true)
                 .setDisableMessageTimestamp(true)
-                .send(deliveredCargoQueue,
-                        cargo.getTrackingId().getIdString());
+                .send(deliveredCargoQueue, cargo.toBytes());
     }
 
     @Override
@@ -73,6 +105,7 @@ public class JmsApplicationEvents implements ApplicationEvents, Serializable {
                 .setPriority(LOW_PRIORITY)
                 .setDisableMessageID(true)
                 .setDisableMessageTimestamp(true)
-                .send(handlingEventQueue, attempt);
+                .send(handlingEventQueue,
+                        HandlingEventRegistrationAttemptCodec.encode(attempt));
     }
 }
\ No newline at end of file
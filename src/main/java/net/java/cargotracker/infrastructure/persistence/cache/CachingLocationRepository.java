@@ -0,0 +1,140 @@
+package net.java.cargotracker.infrastructure.persistence.cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.Priority;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.enterprise.inject.Alternative;
+import javax.inject.Inject;
+import javax.interceptor.Interceptor;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import net.java.cargotracker.domain.model.location.Location;
+import net.java.cargotracker.domain.model.location.LocationRepository;
+import net.java.cargotracker.domain.model.location.UnLocode;
+import net.java.cargotracker.infrastructure.events.cdi.LocationsChanged;
+import net.java.cargotracker.infrastructure.persistence.jpa.JpaLocationRepository;
+
+/**
+ * Read-through cache in front of the JPA location repository. Only the primary
+ * keys of the locations are cached, by UN/LOCODE, so locations are found by
+ * key instead of by query. That is answered by the persistence context or the
+ * shared cache of the persistence provider, and every caller gets instances
+ * managed by its own persistence context.
+ * <p/>
+ * All keys are loaded when the cache is created and again whenever a location
+ * changes. Locations that are missing, or whose key no longer finds them, are
+ * read from the database and their keys added.
+ */
+@Alternative
+@Priority(Interceptor.Priority.APPLICATION)
+@ApplicationScoped
+public class CachingLocationRepository implements LocationRepository,
+        Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger logger = Logger.getLogger(
+            CachingLocationRepository.class.getName());
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Inject
+    private JpaLocationRepository jpaLocationRepository;
+    private final ReferenceDataCache<UnLocode, Object> ids
+            = new ReferenceDataCache<>();
+
+    @PostConstruct
+    public void refresh() {
+        Map<UnLocode, Object> loaded = new LinkedHashMap<>();
+
+        for (Location location : jpaLocationRepository.findAll()) {
+            loaded.put(location.getUnLocode(), idOf(location));
+        }
+
+        ids.replaceAll(loaded);
+        logger.log(Level.INFO, "Cached keys of {0} locations", loaded.size());
+    }
+
+    public void onLocationsChanged(
+            @Observes(during = TransactionPhase.AFTER_SUCCESS)
+            @LocationsChanged Location location) {
+        refresh();
+    }
+
+    @Override
+    public Location find(UnLocode unLocode) {
+        Location location = findCached(unLocode);
+
+        if (location == null) {
+            location = jpaLocationRepository.find(unLocode);
+
+            if (location != null) {
+                ids.put(unLocode, idOf(location));
+            }
+        }
+
+        return location;
+    }
+
+    @Override
+    public List<Location> findAll() {
+        return jpaLocationRepository.findAll();
+    }
+
+    @Override
+    public List<Location> findAll(Collection<UnLocode> unLocodes) {
+        List<Location> locations = new ArrayList<>(unLocodes.size());
+        List<UnLocode> missing = new ArrayList<>();
+
+        for (UnLocode unLocode : unLocodes) {
+            Location location = findCached(unLocode);
+
+            if (location == null) {
+                missing.add(unLocode);
+            } else {
+                locations.add(location);
+            }
+        }
+
+        for (Location location : jpaLocationRepository.findAll(missing)) {
+            ids.put(location.getUnLocode(), idOf(location));
+            locations.add(location);
+        }
+
+        return locations;
+    }
+
+    @Override
+    public void store(Location location) {
+        // Refreshed once the change is committed.
+        jpaLocationRepository.store(location);
+    }
+
+    private Location findCached(UnLocode unLocode) {
+        Object id = ids.get(unLocode);
+
+        return id == null ? null : entityManager.find(Location.class, id);
+    }
+
+    private Object idOf(Location location) {
+        return entityManager.getEntityManagerFactory().getPersistenceUnitUtil()
+                .getIdentifier(location);
+    }
+
+    public double getHitRatio() {
+        return ids.getHitRatio();
+    }
+
+    @Override
+    public String toString() {
+        return "CachingLocationRepository{" + ids + "}";
+    }
+}
@@ -0,0 +1,138 @@
+package net.java.cargotracker.infrastructure.persistence.cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.Priority;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.enterprise.inject.Alternative;
+import javax.inject.Inject;
+import javax.interceptor.Interceptor;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import net.java.cargotracker.domain.model.voyage.Voyage;
+import net.java.cargotracker.domain.model.voyage.VoyageNumber;
+import net.java.cargotracker.domain.model.voyage.VoyageRepository;
+import net.java.cargotracker.infrastructure.events.cdi.VoyagesChanged;
+import net.java.cargotracker.infrastructure.persistence.jpa.JpaVoyageRepository;
+
+/**
+ * Read-through cache in front of the JPA voyage repository. Only the primary
+ * keys of the voyages are cached, by voyage number, so voyages are found by
+ * key instead of by query. That is answered by the persistence context or the
+ * shared cache of the persistence provider, and every caller gets instances
+ * managed by its own persistence context.
+ * <p/>
+ * All keys are loaded when the cache is created and again whenever a voyage
+ * changes. Voyages that are missing, or whose key no longer finds them, are
+ * read from the database and their keys added.
+ */
+@Alternative
+@Priority(Interceptor.Priority.APPLICATION)
+@ApplicationScoped
+public class CachingVoyageRepository implements VoyageRepository, Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger logger = Logger.getLogger(
+            CachingVoyageRepository.class.getName());
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Inject
+    private JpaVoyageRepository jpaVoyageRepository;
+    private final ReferenceDataCache<VoyageNumber, Object> ids
+            = new ReferenceDataCache<>();
+
+    @PostConstruct
+    public void refresh() {
+        Map<VoyageNumber, Object> loaded = new LinkedHashMap<>();
+
+        for (Voyage voyage : jpaVoyageRepository.findAll()) {
+            loaded.put(voyage.getVoyageNumber(), idOf(voyage));
+        }
+
+        ids.replaceAll(loaded);
+        logger.log(Level.INFO, "Cached keys of {0} voyages", loaded.size());
+    }
+
+    public void onVoyagesChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS)
+            @VoyagesChanged Voyage voyage) {
+        refresh();
+    }
+
+    @Override
+    public Voyage find(VoyageNumber voyageNumber) {
+        Voyage voyage = findCached(voyageNumber);
+
+        if (voyage == null) {
+            voyage = jpaVoyageRepository.find(voyageNumber);
+
+            if (voyage != null) {
+                ids.put(voyageNumber, idOf(voyage));
+            }
+        }
+
+        return voyage;
+    }
+
+    @Override
+    public List<Voyage> findAll() {
+        return jpaVoyageRepository.findAll();
+    }
+
+    @Override
+    public List<Voyage> findAll(Collection<VoyageNumber> voyageNumbers) {
+        List<Voyage> voyages = new ArrayList<>(voyageNumbers.size());
+        List<VoyageNumber> missing = new ArrayList<>();
+
+        for (VoyageNumber voyageNumber : voyageNumbers) {
+            Voyage voyage = findCached(voyageNumber);
+
+            if (voyage == null) {
+                missing.add(voyageNumber);
+            } else {
+                voyages.add(voyage);
+            }
+        }
+
+        for (Voyage voyage : jpaVoyageRepository.findAll(missing)) {
+            ids.put(voyage.getVoyageNumber(), idOf(voyage));
+            voyages.add(voyage);
+        }
+
+        return voyages;
+    }
+
+    @Override
+    public void store(Voyage voyage) {
+        // Refreshed once the change is committed.
+        jpaVoyageRepository.store(voyage);
+    }
+
+    private Voyage findCached(VoyageNumber voyageNumber) {
+        Object id = ids.get(voyageNumber);
+
+        return id == null ? null : entityManager.find(Voyage.class, id);
+    }
+
+    private Object idOf(Voyage voyage) {
+        return entityManager.getEntityManagerFactory().getPersistenceUnitUtil()
+                .getIdentifier(voyage);
+    }
+
+    public double getHitRatio() {
+        return ids.getHitRatio();
+    }
+
+    @Override
+    public String toString() {
+        return "CachingVoyageRepository{" + ids + "}";
+    }
+}
@@ -0,0 +1,82 @@
+package net.java.cargotracker.infrastructure.persistence.cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable map of reference data that is replaced as a whole, so lookups
+ * need neither locks nor copies. Entries added after a miss are copied into a
+ * new map, which is cheap because misses are rare once the map is preloaded.
+ */
+class ReferenceDataCache<K, V> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private volatile Map<K, V> entries = Collections.emptyMap();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @return The cached value, or null on a miss.
+     */
+    V get(K key) {
+        V value = entries.get(key);
+
+        if (value == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+
+        return value;
+    }
+
+    /**
+     * @return All values, in the order they were loaded.
+     */
+    List<V> values() {
+        return new ArrayList<>(entries.values());
+    }
+
+    synchronized void put(K key, V value) {
+        Map<K, V> copy = new LinkedHashMap<>(entries);
+        copy.put(key, value);
+        entries = Collections.unmodifiableMap(copy);
+    }
+
+    synchronized void replaceAll(Map<K, V> loaded) {
+        entries = Collections.unmodifiableMap(new LinkedHashMap<>(loaded));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long getHitCount() {
+        return hits.get();
+    }
+
+    long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return Share of lookups answered from the cache, 0 if there were none.
+     */
+    double getHitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return "size=" + size() + ", hits=" + getHitCount() + ", misses="
+                + getMissCount();
+    }
+}
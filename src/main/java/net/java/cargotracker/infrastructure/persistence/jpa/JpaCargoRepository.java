@@ -1,6 +1,9 @@
 package net.java.cargotracker.infrastructure.persistence.jpa;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.logging.Level;
@@ -9,6 +12,7 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import net.java.cargotracker.application.projection.CargoStatusProjection;
 import net.java.cargotracker.domain.model.cargo.Cargo;
 import net.java.cargotracker.domain.model.cargo.CargoRepository;
 import net.java.cargotracker.domain.model.cargo.Leg;
@@ -50,6 +54,8 @@ public class JpaCargoRepository implements CargoRepository, Serializable {
         }
 
         entityManager.persist(cargo);
+        // Keep the status projection in step with the cargo.
+        entityManager.merge(new CargoStatusProjection(cargo));
     }
 
     @Override
@@ -64,4 +70,21 @@ public class JpaCargoRepository implements CargoRepository, Serializable {
         return entityManager.createNamedQuery("Cargo.findAll", Cargo.class)
                 .getResultList();
     }
+
+    @Override
+    public List<Cargo> findAll(Collection<TrackingId> trackingIds) {
+        if (trackingIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> idStrings = new ArrayList<>(trackingIds.size());
+
+        for (TrackingId trackingId : trackingIds) {
+            idStrings.add(trackingId.getIdString());
+        }
+
+        return entityManager.createNamedQuery("Cargo.findByTrackingIds",
+                Cargo.class).setParameter("trackingIds", idStrings)
+                .getResultList();
+    }
 }
@@ -0,0 +1,96 @@
+package net.java.cargotracker.infrastructure.persistence.jpa;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.enterprise.context.ApplicationScoped;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import net.java.cargotracker.application.projection.CargoStatusFilter;
+import net.java.cargotracker.application.projection.CargoStatusProjection;
+import net.java.cargotracker.application.projection.CargoStatusProjectionRepository;
+import net.java.cargotracker.domain.model.cargo.RoutingStatus;
+import net.java.cargotracker.domain.model.cargo.TransportStatus;
+
+@ApplicationScoped
+public class JpaCargoStatusProjectionRepository
+        implements CargoStatusProjectionRepository, Serializable {
+
+    private static final long serialVersionUID = 1L;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<CargoStatusProjection> findAll() {
+        return entityManager.createNamedQuery("CargoStatusProjection.findAll",
+                CargoStatusProjection.class).getResultList();
+    }
+
+    @Override
+    public Date findLatestCalculatedAt() {
+        return entityManager.createNamedQuery(
+                "CargoStatusProjection.findLatestCalculatedAt", Date.class)
+                .getSingleResult();
+    }
+
+    @Override
+    public List<CargoStatusProjection> find(CargoStatusFilter filter,
+            String afterTrackingId, int maxResults) {
+        StringBuilder jpql = new StringBuilder(
+                "Select c from CargoStatusProjection c where 1 = 1");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+
+        if (afterTrackingId != null) {
+            jpql.append(" and c.trackingId > :afterTrackingId");
+            parameters.put("afterTrackingId", afterTrackingId);
+        }
+
+        if (filter.getRoutingStatus() != null) {
+            jpql.append(" and c.routingStatus = :routingStatus");
+            parameters.put("routingStatus", filter.getRoutingStatus());
+        }
+
+        if (filter.getTransportStatus() != null) {
+            jpql.append(" and c.transportStatus = :transportStatus");
+            parameters.put("transportStatus", filter.getTransportStatus());
+        }
+
+        if (filter.getRouted() != null) {
+            jpql.append(filter.getRouted() ? " and c.routingStatus <> "
+                    : " and c.routingStatus = ")
+                    .append(":notRouted");
+            parameters.put("notRouted", RoutingStatus.NOT_ROUTED);
+        }
+
+        if (filter.getClaimed() != null) {
+            jpql.append(filter.getClaimed() ? " and c.transportStatus = "
+                    : " and c.transportStatus <> ")
+                    .append(":claimed");
+            parameters.put("claimed", TransportStatus.CLAIMED);
+        }
+
+        if (filter.getMisdirected() != null) {
+            jpql.append(" and c.misdirected = :misdirected");
+            parameters.put("misdirected", filter.getMisdirected());
+        }
+
+        if (filter.getCalculatedSince() != null) {
+            jpql.append(" and c.calculatedAt >= :calculatedSince");
+            parameters.put("calculatedSince", filter.getCalculatedSince());
+        }
+
+        jpql.append(" order by c.trackingId");
+
+        TypedQuery<CargoStatusProjection> query = entityManager.createQuery(
+                jpql.toString(), CargoStatusProjection.class);
+
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            query.setParameter(parameter.getKey(), parameter.getValue());
+        }
+
+        return query.setMaxResults(maxResults).getResultList();
+    }
+}
@@ -1,6 +1,7 @@
 package net.java.cargotracker.infrastructure.persistence.jpa;
 
 import java.io.Serializable;
+import java.util.List;
 import javax.enterprise.context.ApplicationScoped;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -22,10 +23,32 @@ public class JpaHandlingEventRepository implements HandlingEventRepository,
         entityManager.persist(event);
     }
 
+    @Override
+    public void storeAll(List<HandlingEvent> events) {
+        for (HandlingEvent event : events) {
+            entityManager.persist(event);
+        }
+
+        // Inserted with JDBC batch writing, see persistence.xml.
+        entityManager.flush();
+    }
+
     @Override
     public HandlingHistory lookupHandlingHistoryOfCargo(TrackingId trackingId) {
         return new HandlingHistory(entityManager.createNamedQuery(
                 "HandlingEvent.findByTrackingId", HandlingEvent.class)
                 .setParameter("trackingId", trackingId).getResultList());
     }
+
+    @Override
+    public HandlingEvent lookupMostRecentlyCompletedEvent(TrackingId trackingId) {
+        List<HandlingEvent> events = entityManager.createNamedQuery(
+                "HandlingEvent.findMostRecentlyCompletedByTrackingId",
+                HandlingEvent.class)
+                .setParameter("trackingId", trackingId)
+                .setMaxResults(1)
+                .getResultList();
+
+        return events.isEmpty() ? null : events.get(0);
+    }
 }
@@ -1,8 +1,12 @@
 package net.java.cargotracker.infrastructure.persistence.jpa;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import net.java.cargotracker.domain.model.location.Location;
@@ -15,6 +19,8 @@ public class JpaLocationRepository implements LocationRepository, Serializable {
     private static final long serialVersionUID = 1L;
     @PersistenceContext
     private EntityManager entityManager;
+    @Inject
+    private ReferenceDataChanges referenceDataChanges;
 
     @Override
     public Location find(UnLocode unLocode) {
@@ -28,4 +34,31 @@ public class JpaLocationRepository implements LocationRepository, Serializable {
         return entityManager.createNamedQuery("Location.findAll", Location.class)
                 .getResultList();
     }
+
+    @Override
+    public List<Location> findAll(Collection<UnLocode> unLocodes) {
+        if (unLocodes.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> idStrings = new ArrayList<>(unLocodes.size());
+
+        for (UnLocode unLocode : unLocodes) {
+            idStrings.add(unLocode.getIdString());
+        }
+
+        return entityManager.createNamedQuery("Location.findByUnLocodes",
+                Location.class).setParameter("unLocodes", idStrings)
+                .getResultList();
+    }
+
+    /**
+     * Locations are cached elsewhere, so stores are announced, once per
+     * transaction.
+     */
+    @Override
+    public void store(Location location) {
+        entityManager.persist(location);
+        referenceDataChanges.locationStored(location);
+    }
 }
@@ -1,8 +1,13 @@
 package net.java.cargotracker.infrastructure.persistence.jpa;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
@@ -16,6 +21,8 @@ public class JpaVoyageRepository implements VoyageRepository, Serializable {
 	private static final long serialVersionUID = 1L;
 	@PersistenceContext
 	private EntityManager entityManager;
+	@Inject
+	private ReferenceDataChanges referenceDataChanges;
 
 	@Override
 	public Voyage find(VoyageNumber voyageNumber) {
@@ -23,4 +30,37 @@ public class JpaVoyageRepository implements VoyageRepository, Serializable {
 				.createNamedQuery("Voyage.findByVoyageNumber", Voyage.class)
 				.setParameter("voyageNumber", voyageNumber).getSingleResult();
 	}
+
+	@Override
+	public List<Voyage> findAll() {
+		return entityManager.createNamedQuery("Voyage.findAll", Voyage.class)
+				.getResultList();
+	}
+
+	@Override
+	public List<Voyage> findAll(Collection<VoyageNumber> voyageNumbers) {
+		if (voyageNumbers.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		List<String> idStrings = new ArrayList<>(voyageNumbers.size());
+
+		for (VoyageNumber voyageNumber : voyageNumbers) {
+			idStrings.add(voyageNumber.getIdString());
+		}
+
+		return entityManager
+				.createNamedQuery("Voyage.findByVoyageNumbers", Voyage.class)
+				.setParameter("voyageNumbers", idStrings).getResultList();
+	}
+
+	/**
+	 * Schedules are cached and searched elsewhere, so stores are announced,
+	 * once per transaction.
+	 */
+	@Override
+	public void store(Voyage voyage) {
+		entityManager.persist(voyage);
+		referenceDataChanges.voyageStored(voyage);
+	}
 }
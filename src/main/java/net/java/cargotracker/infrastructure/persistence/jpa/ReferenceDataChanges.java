@@ -0,0 +1,53 @@
+package net.java.cargotracker.infrastructure.persistence.jpa;
+
+import java.io.Serializable;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+import javax.transaction.TransactionScoped;
+import net.java.cargotracker.domain.model.location.Location;
+import net.java.cargotracker.domain.model.voyage.Voyage;
+import net.java.cargotracker.infrastructure.events.cdi.LocationsChanged;
+import net.java.cargotracker.infrastructure.events.cdi.VoyagesChanged;
+
+/**
+ * Announces changed voyages and locations once per transaction. Observers
+ * reload whole caches and the routing graph when told, so storing a batch of
+ * voyages in one transaction should cost one reload, not one per voyage. The
+ * event carries the first voyage or location stored in the transaction.
+ */
+@TransactionScoped
+public class ReferenceDataChanges implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    @Inject
+    @VoyagesChanged
+    private Event<Voyage> voyagesChanged;
+    @Inject
+    @LocationsChanged
+    private Event<Location> locationsChanged;
+    private boolean voyagesAnnounced;
+    private boolean locationsAnnounced;
+
+    public ReferenceDataChanges() {
+    }
+
+    ReferenceDataChanges(Event<Voyage> voyagesChanged,
+            Event<Location> locationsChanged) {
+        this.voyagesChanged = voyagesChanged;
+        this.locationsChanged = locationsChanged;
+    }
+
+    public void voyageStored(Voyage voyage) {
+        if (!voyagesAnnounced) {
+            voyagesAnnounced = true;
+            voyagesChanged.fire(voyage);
+        }
+    }
+
+    public void locationStored(Location location) {
+        if (!locationsAnnounced) {
+            locationsAnnounced = true;
+            locationsChanged.fire(location);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package net.java.cargotracker.infrastructure.routing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stops calls to a remote service after a number of consecutive failures.
+ * While open, calls are refused right away instead of tying up threads on a
+ * service that is down or too slow. After the open time a single trial call is
+ * let through; its success closes the breaker, its failure opens it again.
+ */
+class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openTime;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    // Time until which calls are refused, 0 if the breaker is closed.
+    private final AtomicLong openUntil = new AtomicLong();
+
+    CircuitBreaker(int failureThreshold, long openTime) {
+        this.failureThreshold = failureThreshold;
+        this.openTime = openTime;
+    }
+
+    /**
+     * @return Whether a call may be made. Once the open time has passed, only
+     * the first caller is allowed a trial call.
+     */
+    boolean allowCall() {
+        long until = openUntil.get();
+
+        if (until == 0) {
+            return true;
+        }
+
+        long now = System.currentTimeMillis();
+
+        return now >= until && openUntil.compareAndSet(until, now + openTime);
+    }
+
+    void recordSuccess() {
+        consecutiveFailures.set(0);
+        openUntil.set(0);
+    }
+
+    void recordFailure() {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openUntil.set(System.currentTimeMillis() + openTime);
+        }
+    }
+
+    boolean isOpen() {
+        return openUntil.get() != 0;
+    }
+}
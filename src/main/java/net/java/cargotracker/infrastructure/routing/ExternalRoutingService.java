@@ -3,25 +3,35 @@ package net.java.cargotracker.infrastructure.routing;
 import net.java.cargotracker.domain.model.cargo.Itinerary;
 import net.java.cargotracker.domain.model.cargo.Leg;
 import net.java.cargotracker.domain.model.cargo.RouteSpecification;
+import net.java.cargotracker.domain.model.location.Location;
 import net.java.cargotracker.domain.model.location.LocationRepository;
 import net.java.cargotracker.domain.model.location.UnLocode;
+import net.java.cargotracker.domain.model.voyage.Voyage;
 import net.java.cargotracker.domain.model.voyage.VoyageNumber;
 import net.java.cargotracker.domain.model.voyage.VoyageRepository;
 import net.java.cargotracker.domain.service.RoutingService;
+import net.java.pathfinder.api.GraphTraversalService;
 import net.java.pathfinder.api.TransitEdge;
 import net.java.pathfinder.api.TransitPath;
 
-import javax.annotation.PostConstruct;
-import javax.annotation.Resource;
+import javax.ejb.AsyncResult;
+import javax.ejb.Asynchronous;
+import javax.ejb.EJBException;
 import javax.ejb.Stateless;
 import javax.inject.Inject;
-import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.client.WebTarget;
-import javax.ws.rs.core.GenericType;
-import javax.ws.rs.core.MediaType;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -34,44 +44,108 @@ import java.util.logging.Logger;
 @Stateless
 public class ExternalRoutingService implements RoutingService {
 
-    @Resource(name = "graphTraversalUrl")
-    private String graphTraversalUrl;
-    // TODO Can I use injection?
-    private final Client jaxrsClient = ClientBuilder.newClient();
-    private WebTarget graphTraversalResource;
+    @Inject
+    private GraphTraversalClient graphTraversalClient;
     @Inject
     private LocationRepository locationRepository;
     @Inject
     private VoyageRepository voyageRepository;
+    @Inject
+    private RouteCandidateCache routeCandidateCache;
     // TODO Use injection instead?
     private static final Logger log = Logger.getLogger(
             ExternalRoutingService.class.getName());
 
-    @PostConstruct
-    public void init() {
-        graphTraversalResource = jaxrsClient.target(graphTraversalUrl);
+    @Override
+    public List<Itinerary> fetchRoutesForSpecification(
+            RouteSpecification routeSpecification) {
+        try {
+            return findRoutes(routeSpecification);
+        } catch (ExecutionException e) {
+            log.log(Level.WARNING, "Unable to fetch routes", e.getCause());
+        } catch (TimeoutException e) {
+            log.log(Level.WARNING, "Unable to fetch routes", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return Collections.emptyList();
     }
 
+    /**
+     * Waits for the routes on a container thread of its own, so the caller
+     * doesn't have to.
+     */
     @Override
-    public List<Itinerary> fetchRoutesForSpecification(
+    @Asynchronous
+    public Future<List<Itinerary>> fetchRoutesForSpecificationAsync(
             RouteSpecification routeSpecification) {
+        try {
+            return new AsyncResult<>(findRoutes(routeSpecification));
+        } catch (ExecutionException e) {
+            throw new EJBException("Unable to fetch routes",
+                    e.getCause() instanceof Exception
+                            ? (Exception) e.getCause() : e);
+        } catch (TimeoutException e) {
+            throw new EJBException("Unable to fetch routes", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EJBException("Interrupted while fetching routes", e);
+        }
+    }
+
+    private List<Itinerary> findRoutes(RouteSpecification routeSpecification)
+            throws InterruptedException, ExecutionException, TimeoutException {
         // The RouteSpecification is picked apart and adapted to the external API.
         String origin = routeSpecification.getOrigin().getUnLocode().getIdString();
         String destination = routeSpecification.getDestination().getUnLocode()
                 .getIdString();
+        long arrivalDeadline = routeSpecification.getArrivalDeadline().getTime();
+        Date now = new Date();
+        String key = RouteCandidateCache.keyOf(origin, destination,
+                arrivalDeadline);
 
-        List<TransitPath> transitPaths = graphTraversalResource
-                .queryParam("origin", origin)
-                .queryParam("destination", destination)
-                .request(MediaType.APPLICATION_JSON_TYPE)
-                .get(new GenericType<List<TransitPath>>() {
-                });
+        List<Itinerary> candidates = routeCandidateCache.get(key);
 
-        // The returned result is then translated back into our domain model.
-        List<Itinerary> itineraries = new ArrayList<>();
+        if (candidates == null) {
+            // Fetch the candidates arriving before the end of the deadline
+            // bucket, which are shared by all route specifications in the
+            // bucket.
+            SimpleDateFormat format = new SimpleDateFormat(
+                    GraphTraversalService.ISO_8601_FORMAT);
+            String deadline = format.format(new Date(
+                    RouteCandidateCache.bucketDeadline(arrivalDeadline)));
+
+            // A route specification doesn't say when the cargo is ready to
+            // leave, so it can leave with anything that hasn't left yet.
+            List<TransitPath> transitPaths = graphTraversalClient
+                    .findShortestPaths(origin, destination, format.format(now),
+                            deadline)
+                    .get(graphTraversalClient.getTimeout(),
+                            TimeUnit.MILLISECONDS);
+
+            candidates = toItineraries(transitPaths);
+            routeCandidateCache.put(key, candidates);
+            log.log(Level.FINE, "Fetched route candidates for {0}, {1}",
+                    new Object[]{key, routeCandidateCache});
+        }
+
+        return satisfying(routeSpecification, candidates, now);
+    }
+
+    /**
+     * Cached candidates may have departed since they were fetched, those are
+     * skipped.
+     */
+    private List<Itinerary> satisfying(RouteSpecification routeSpecification,
+            List<Itinerary> candidates, Date now) {
+        List<Itinerary> itineraries = new ArrayList<>(candidates.size());
+
+        for (Itinerary itinerary : candidates) {
+            if (itinerary.getLegs().get(0).getLoadTime().before(now)) {
+                continue;
+            }
 
-        for (TransitPath transitPath : transitPaths) {
-            Itinerary itinerary = toItinerary(transitPath);
             // Use the specification to safe-guard against invalid itineraries
             if (routeSpecification.isSatisfiedBy(itinerary)) {
                 itineraries.add(itinerary);
@@ -84,19 +158,56 @@ public class ExternalRoutingService implements RoutingService {
         return itineraries;
     }
 
-    private Itinerary toItinerary(TransitPath transitPath) {
-        List<Leg> legs = new ArrayList<>(transitPath.getTransitEdges().size());
-        for (TransitEdge edge : transitPath.getTransitEdges()) {
-            legs.add(toLeg(edge));
+    /**
+     * All locations and voyages of the paths are looked up at once, rather
+     * than two locations and a voyage per edge.
+     */
+    private List<Itinerary> toItineraries(List<TransitPath> transitPaths) {
+        Set<UnLocode> unLocodes = new HashSet<>();
+        Set<VoyageNumber> voyageNumbers = new HashSet<>();
+
+        for (TransitPath transitPath : transitPaths) {
+            for (TransitEdge edge : transitPath.getTransitEdges()) {
+                unLocodes.add(new UnLocode(edge.getFromUnLocode()));
+                unLocodes.add(new UnLocode(edge.getToUnLocode()));
+                voyageNumbers.add(new VoyageNumber(edge.getVoyageNumber()));
+            }
+        }
+
+        Map<UnLocode, Location> locations = new HashMap<>();
+
+        for (Location location : locationRepository.findAll(unLocodes)) {
+            locations.put(location.getUnLocode(), location);
+        }
+
+        Map<VoyageNumber, Voyage> voyages = new HashMap<>();
+
+        for (Voyage voyage : voyageRepository.findAll(voyageNumbers)) {
+            voyages.put(voyage.getVoyageNumber(), voyage);
         }
-        return new Itinerary(legs);
+
+        List<Itinerary> itineraries = new ArrayList<>(transitPaths.size());
+
+        for (TransitPath transitPath : transitPaths) {
+            List<Leg> legs = new ArrayList<>(
+                    transitPath.getTransitEdges().size());
+
+            for (TransitEdge edge : transitPath.getTransitEdges()) {
+                legs.add(toLeg(edge, locations, voyages));
+            }
+
+            itineraries.add(new Itinerary(legs));
+        }
+
+        return itineraries;
     }
 
-    private Leg toLeg(TransitEdge edge) {
+    private Leg toLeg(TransitEdge edge, Map<UnLocode, Location> locations,
+            Map<VoyageNumber, Voyage> voyages) {
         return new Leg(
-                voyageRepository.find(new VoyageNumber(edge.getVoyageNumber())),
-                locationRepository.find(new UnLocode(edge.getFromUnLocode())),
-                locationRepository.find(new UnLocode(edge.getToUnLocode())),
+                voyages.get(new VoyageNumber(edge.getVoyageNumber())),
+                locations.get(new UnLocode(edge.getFromUnLocode())),
+                locations.get(new UnLocode(edge.getToUnLocode())),
                 edge.getFromDate(), edge.getToDate());
     }
 }
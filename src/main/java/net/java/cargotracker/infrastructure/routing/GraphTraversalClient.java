@@ -0,0 +1,218 @@
+package net.java.cargotracker.infrastructure.routing;
+
+import net.java.pathfinder.api.TransitPath;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Non-blocking client of the graph traversal API, shared by all routing
+ * service instances.
+ * <p/>
+ * Calls are made with the asynchronous JAX-RS client, so no container thread
+ * waits for the pathfinder unless the caller chooses to. Identical calls that
+ * are in flight at the same time are coalesced into one HTTP request. Calls
+ * time out according to the configured connect and read timeouts, and a
+ * circuit breaker refuses calls for a while after repeated failures, so a slow
+ * pathfinder can't exhaust the EJB pool.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class GraphTraversalClient {
+
+    // Timeouts aren't standardized in JAX-RS 2.0, these are Jersey's.
+    private static final String CONNECT_TIMEOUT_PROPERTY
+            = "jersey.config.client.connectTimeout";
+    private static final String READ_TIMEOUT_PROPERTY
+            = "jersey.config.client.readTimeout";
+    private static final Logger log = Logger.getLogger(
+            GraphTraversalClient.class.getName());
+    @Resource(name = "graphTraversalUrl")
+    private String graphTraversalUrl;
+    @Resource(name = "connectTimeout")
+    private Integer connectTimeout = 2000;
+    @Resource(name = "readTimeout")
+    private Integer readTimeout = 10000;
+    @Resource(name = "circuitBreakerFailureThreshold")
+    private Integer circuitBreakerFailureThreshold = 5;
+    @Resource(name = "circuitBreakerOpenTime")
+    private Integer circuitBreakerOpenTime = 30000;
+    private Client jaxrsClient;
+    private WebTarget graphTraversalResource;
+    private CircuitBreaker circuitBreaker;
+    private final ConcurrentMap<String, PendingCall> pendingCalls
+            = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        jaxrsClient = ClientBuilder.newBuilder()
+                .property(CONNECT_TIMEOUT_PROPERTY, connectTimeout)
+                .property(READ_TIMEOUT_PROPERTY, readTimeout)
+                .build();
+        graphTraversalResource = jaxrsClient.target(graphTraversalUrl);
+        circuitBreaker = new CircuitBreaker(circuitBreakerFailureThreshold,
+                circuitBreakerOpenTime);
+    }
+
+    @PreDestroy
+    public void close() {
+        jaxrsClient.close();
+    }
+
+    /**
+     * @param departure earliest departure, or null for the current time;
+     * formatted as expected by the graph traversal API
+     * @param deadline arrival deadline, formatted as expected by the graph
+     * traversal API
+     * @return The transit paths, once the call has completed. Fails with a
+     * {@link ProcessingException} if the call fails, or right away if the
+     * circuit breaker is open.
+     */
+    public Future<List<TransitPath>> findShortestPaths(String origin,
+            String destination, String departure, String deadline) {
+        String key = origin + "-" + destination + "@" + departure + "-"
+                + deadline;
+        PendingCall call = new PendingCall(key);
+        PendingCall pending = pendingCalls.putIfAbsent(key, call);
+
+        if (pending != null) {
+            return pending;
+        }
+
+        if (!circuitBreaker.allowCall()) {
+            pendingCalls.remove(key, call);
+            call.complete(null, new ProcessingException(
+                    "Graph traversal calls suspended after repeated failures"));
+
+            return call;
+        }
+
+        try {
+            graphTraversalResource
+                    .queryParam("origin", origin)
+                    .queryParam("destination", destination)
+                    .queryParam("departure", departure)
+                    .queryParam("deadline", deadline)
+                    .request(MediaType.APPLICATION_JSON_TYPE)
+                    .async()
+                    .get(call);
+        } catch (RuntimeException e) {
+            call.failed(e);
+        }
+
+        return call;
+    }
+
+    /**
+     * @return How long a call may take at most, in milliseconds, connecting
+     * included.
+     */
+    public long getTimeout() {
+        return (long) connectTimeout + readTimeout;
+    }
+
+    public boolean isCircuitBreakerOpen() {
+        return circuitBreaker.isOpen();
+    }
+
+    /**
+     * An HTTP call in flight, shared by all callers asking for the same paths
+     * until it completes.
+     */
+    private class PendingCall implements Future<List<TransitPath>>,
+            InvocationCallback<List<TransitPath>> {
+
+        private final String key;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile List<TransitPath> result;
+        private volatile Throwable failure;
+
+        PendingCall(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void completed(List<TransitPath> transitPaths) {
+            circuitBreaker.recordSuccess();
+            pendingCalls.remove(key, this);
+            complete(transitPaths, null);
+        }
+
+        @Override
+        public void failed(Throwable throwable) {
+            circuitBreaker.recordFailure();
+            pendingCalls.remove(key, this);
+            log.log(Level.WARNING, "Graph traversal call failed", throwable);
+            complete(null, throwable);
+        }
+
+        void complete(List<TransitPath> transitPaths, Throwable throwable) {
+            result = transitPaths;
+            failure = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            // Other callers may be waiting for the same call.
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        @Override
+        public List<TransitPath> get() throws InterruptedException,
+                ExecutionException {
+            done.await();
+            return getResult();
+        }
+
+        @Override
+        public List<TransitPath> get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException,
+                TimeoutException {
+            if (!done.await(timeout, unit)) {
+                throw new TimeoutException("Graph traversal call for " + key
+                        + " did not complete in time");
+            }
+
+            return getResult();
+        }
+
+        private List<TransitPath> getResult() throws ExecutionException {
+            if (failure != null) {
+                throw new ExecutionException(failure);
+            }
+
+            return result;
+        }
+    }
+}
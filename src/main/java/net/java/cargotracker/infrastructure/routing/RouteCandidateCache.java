@@ -0,0 +1,153 @@
+package net.java.cargotracker.infrastructure.routing;
+
+import net.java.cargotracker.domain.model.cargo.Itinerary;
+import net.java.cargotracker.domain.model.voyage.Voyage;
+import net.java.cargotracker.infrastructure.events.cdi.VoyagesChanged;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded cache of the itinerary candidates fetched from the routing service,
+ * keyed by origin, destination and arrival deadline bucket. Booking agents
+ * keep asking for the same lanes, so hot lanes are answered without a round
+ * trip to the pathfinder.
+ * <p/>
+ * Candidates are fetched for departures from the time of the fetch onwards, so
+ * the earliest of them depart one by one while they are cached. Entries expire
+ * after a while, so that later departures are fetched in their place, and all
+ * entries are dropped as soon as a transaction changes voyages. The least
+ * recently used entry is evicted when the cache is full.
+ */
+@ApplicationScoped
+public class RouteCandidateCache implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_ENTRIES = 1000;
+    private static final long TIME_TO_LIVE = 5 * 60 * 1000;
+    /**
+     * Deadlines are chosen by the day, so requests within the same day share
+     * the candidates that arrive before its end.
+     */
+    private static final long DEADLINE_BUCKET = 24 * 60 * 60 * 1000;
+    private static final Logger log = Logger.getLogger(
+            RouteCandidateCache.class.getName());
+    private final Map<String, CachedCandidates> entries
+            = new LinkedHashMap<String, CachedCandidates>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<String, CachedCandidates> eldest) {
+                    if (size() > MAX_ENTRIES) {
+                        evictions.incrementAndGet();
+                        return true;
+                    }
+
+                    return false;
+                }
+            };
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @return The latest arrival covered by the bucket of the deadline. The
+     * candidates cached for a bucket are fetched with this deadline.
+     */
+    public static long bucketDeadline(long arrivalDeadline) {
+        return (arrivalDeadline / DEADLINE_BUCKET + 1) * DEADLINE_BUCKET;
+    }
+
+    public static String keyOf(String origin, String destination,
+            long arrivalDeadline) {
+        return origin + "-" + destination + "@"
+                + bucketDeadline(arrivalDeadline);
+    }
+
+    /**
+     * @return The cached candidates, or null if there are none or they have
+     * expired.
+     */
+    public synchronized List<Itinerary> get(String key) {
+        CachedCandidates entry = entries.get(key);
+
+        if (entry != null && entry.expires <= System.currentTimeMillis()) {
+            entries.remove(key);
+            evictions.incrementAndGet();
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return entry.itineraries;
+    }
+
+    public synchronized void put(String key, List<Itinerary> itineraries) {
+        entries.put(key, new CachedCandidates(itineraries,
+                System.currentTimeMillis() + TIME_TO_LIVE));
+    }
+
+    public synchronized void invalidateAll() {
+        evictions.addAndGet(entries.size());
+        entries.clear();
+    }
+
+    /**
+     * A changed schedule may affect any lane, not only those it was part of.
+     */
+    public void onVoyagesChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS)
+            @VoyagesChanged Voyage voyage) {
+        invalidateAll();
+        log.log(Level.INFO,
+                "Route candidates invalidated after changes of voyages such as {0}, {1}",
+                new Object[]{voyage.getVoyageNumber().getIdString(), this});
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return "RouteCandidateCache{size=" + getSize() + ", hits="
+                + getHitCount() + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount() + "}";
+    }
+
+    private static class CachedCandidates implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        private final List<Itinerary> itineraries;
+        private final long expires;
+
+        CachedCandidates(List<Itinerary> itineraries, long expires) {
+            this.itineraries = itineraries;
+            this.expires = expires;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package net.java.cargotracker.infrastructure.routing;
+
+import net.java.cargotracker.domain.model.voyage.Voyage;
+import net.java.cargotracker.infrastructure.events.cdi.VoyagesChanged;
+import net.java.pathfinder.api.GraphTraversalService;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tells the routing team's pathfinder when our voyage schedules change, so it
+ * rebuilds its timetable and shares it with the other nodes.
+ */
+@ApplicationScoped
+public class TimetablePublisher {
+
+    private static final Logger log = Logger.getLogger(
+            TimetablePublisher.class.getName());
+    @Inject
+    private GraphTraversalService graphTraversalService;
+
+    public void onVoyagesChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS)
+            @VoyagesChanged Voyage voyage) {
+        graphTraversalService.schedulesChanged();
+        log.log(Level.FINE, "Published timetable after changes of voyages such as {0}",
+                voyage.getVoyageNumber().getIdString());
+    }
+}
@@ -2,6 +2,7 @@ package net.java.cargotracker.interfaces.booking.facade;
 
 import java.util.Date;
 import java.util.List;
+import net.java.cargotracker.application.projection.CargoStatusFilter;
 import net.java.cargotracker.interfaces.booking.facade.dto.CargoRoute;
 import net.java.cargotracker.interfaces.booking.facade.dto.Location;
 import net.java.cargotracker.interfaces.booking.facade.dto.RouteCandidate;
@@ -25,4 +26,13 @@ public interface BookingServiceFacade {
     List<Location> listShippingLocations();
 
     List<CargoRoute> listAllCargos();
+
+    /**
+     * @param afterTrackingId tracking id of the last cargo on the previous
+     * page, or null for the first page
+     * @return A page of cargos matching the filter, without legs, ordered by
+     * tracking id.
+     */
+    List<CargoRoute> listCargos(CargoStatusFilter filter,
+            String afterTrackingId, int maxResults);
 }
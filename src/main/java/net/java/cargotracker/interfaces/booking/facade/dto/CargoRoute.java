@@ -25,10 +25,21 @@ public class CargoRoute implements Serializable {
     private final boolean claimed;
     private final String lastKnownLocation;
     private final String transportStatus;
+    private final boolean routed;
     private String nextLocation;
 
     public CargoRoute(String trackingId, String origin, String finalDestination,
             Date arrivalDeadline, boolean misrouted, boolean claimed, String lastKnownLocation, String transportStatus) {
+        this(trackingId, origin, finalDestination, arrivalDeadline, misrouted,
+                claimed, lastKnownLocation, transportStatus, false);
+    }
+
+    /**
+     * @param routed whether the cargo is routed, for a summary without legs
+     */
+    public CargoRoute(String trackingId, String origin, String finalDestination,
+            Date arrivalDeadline, boolean misrouted, boolean claimed,
+            String lastKnownLocation, String transportStatus, boolean routed) {
         this.trackingId = trackingId;
         this.origin = origin;
         this.finalDestination = finalDestination;
@@ -37,6 +48,7 @@ public class CargoRoute implements Serializable {
         this.claimed = claimed;
         this.lastKnownLocation = lastKnownLocation;
         this.transportStatus = transportStatus;
+        this.routed = routed;
         this.legs = new ArrayList<>();
     }
 
@@ -72,7 +84,7 @@ public class CargoRoute implements Serializable {
     }
 
     public boolean isRouted() {
-        return !legs.isEmpty();
+        return routed || !legs.isEmpty();
     }
 
     public String getArrivalDeadline() {
@@ -1,6 +1,9 @@
 package net.java.cargotracker.interfaces.booking.facade.internal;
 
 import net.java.cargotracker.application.BookingService;
+import net.java.cargotracker.application.projection.CargoStatusFilter;
+import net.java.cargotracker.application.projection.CargoStatusProjection;
+import net.java.cargotracker.application.projection.CargoStatusProjectionRepository;
 import net.java.cargotracker.domain.model.cargo.Cargo;
 import net.java.cargotracker.domain.model.cargo.CargoRepository;
 import net.java.cargotracker.domain.model.cargo.Itinerary;
@@ -36,6 +39,8 @@ public class DefaultBookingServiceFacade implements BookingServiceFacade,
     private CargoRepository cargoRepository;
     @Inject
     private VoyageRepository voyageRepository;
+    @Inject
+    private CargoStatusProjectionRepository cargoStatusRepository;
 
     @Override
     public List<net.java.cargotracker.interfaces.booking.facade.dto.Location> listShippingLocations() {
@@ -79,12 +84,28 @@ public class DefaultBookingServiceFacade implements BookingServiceFacade,
 
     @Override
     public List<CargoRoute> listAllCargos() {
-        List<Cargo> cargos = cargoRepository.findAll();
+        List<CargoStatusProjection> cargos = cargoStatusRepository.findAll();
+        List<CargoRoute> routes = new ArrayList<>(cargos.size());
+
+        CargoRouteDtoAssembler assembler = new CargoRouteDtoAssembler();
+
+        for (CargoStatusProjection cargo : cargos) {
+            routes.add(assembler.toDto(cargo));
+        }
+
+        return routes;
+    }
+
+    @Override
+    public List<CargoRoute> listCargos(CargoStatusFilter filter,
+            String afterTrackingId, int maxResults) {
+        List<CargoStatusProjection> cargos = cargoStatusRepository.find(filter,
+                afterTrackingId, maxResults);
         List<CargoRoute> routes = new ArrayList<>(cargos.size());
 
         CargoRouteDtoAssembler assembler = new CargoRouteDtoAssembler();
 
-        for (Cargo cargo : cargos) {
+        for (CargoStatusProjection cargo : cargos) {
             routes.add(assembler.toDto(cargo));
         }
 
@@ -1,5 +1,6 @@
 package net.java.cargotracker.interfaces.booking.facade.internal.assembler;
 
+import net.java.cargotracker.application.projection.CargoStatusProjection;
 import net.java.cargotracker.domain.model.cargo.Cargo;
 import net.java.cargotracker.domain.model.cargo.Leg;
 import net.java.cargotracker.domain.model.cargo.RoutingStatus;
@@ -34,4 +35,23 @@ public class CargoRouteDtoAssembler {
 
         return dto;
     }
+
+    /**
+     * @return A cargo route without legs, for listing.
+     */
+    public CargoRoute toDto(CargoStatusProjection cargoStatus) {
+        return new CargoRoute(
+                cargoStatus.getTrackingId(),
+                cargoStatus.getOriginName() + " (" + cargoStatus.getOriginUnLocode() + ")",
+                cargoStatus.getDestinationName() + " (" + cargoStatus.getDestinationUnLocode() + ")",
+                cargoStatus.getArrivalDeadline(),
+                cargoStatus.getRoutingStatus()
+                .sameValueAs(RoutingStatus.MISROUTED),
+                cargoStatus.getTransportStatus()
+                .sameValueAs(TransportStatus.CLAIMED),
+                cargoStatus.getLastKnownLocationName() + " (" + cargoStatus.getLastKnownLocationUnLocode() + ")",
+                cargoStatus.getTransportStatus().name(),
+                !cargoStatus.getRoutingStatus()
+                .sameValueAs(RoutingStatus.NOT_ROUTED));
+    }
 }
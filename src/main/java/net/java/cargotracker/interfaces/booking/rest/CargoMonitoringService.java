@@ -1,51 +1,121 @@
 package net.java.cargotracker.interfaces.booking.rest;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
 import java.util.List;
 import javax.ejb.Stateless;
 import javax.inject.Inject;
 import javax.json.Json;
-import javax.json.JsonArray;
-import javax.json.JsonArrayBuilder;
+import javax.json.stream.JsonGenerator;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
-import net.java.cargotracker.domain.model.cargo.Cargo;
-import net.java.cargotracker.domain.model.cargo.CargoRepository;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import net.java.cargotracker.application.projection.CargoStatusFilter;
+import net.java.cargotracker.application.projection.CargoStatusProjection;
+import net.java.cargotracker.application.projection.CargoStatusProjectionRepository;
+import net.java.cargotracker.domain.model.location.Location;
 
 @Stateless
 @Path("/cargo")
 public class CargoMonitoringService {
 
     public static final String ISO_8601_FORMAT = "yyyy-MM-dd HH:mm";
+    /**
+     * Number of cargos read from the database at a time.
+     */
+    static final int PAGE_SIZE = 500;
     @Inject
-    private CargoRepository cargoRepository;
+    private CargoStatusProjectionRepository cargoStatusRepository;
 
+    /**
+     * Streams the status of cargos as a JSON array. Cargos are read a page at
+     * a time and written out as they are read, so neither the list of cargos
+     * nor the response is ever held in memory as a whole.
+     * <p/>
+     * The entity tag is the time the most recent delivery was calculated at.
+     * A poll that sends it back in If-None-Match gets 304 Not Modified as long
+     * as no cargo has changed, without any cargo being read.
+     *
+     * @param since if given, only cargos whose delivery was calculated at or
+     * after this time, in milliseconds since the epoch, are listed
+     */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public JsonArray getAllCargo() {
-        List<Cargo> cargos = cargoRepository.findAll();
-
-        JsonArrayBuilder builder = Json.createArrayBuilder();
-
-        for (Cargo cargo : cargos) {
-            builder.add(Json.createObjectBuilder()
-                    .add("trackingId", cargo.getTrackingId().getIdString())
-                    .add("routingStatus", cargo.getDelivery()
-                            .getRoutingStatus().toString())
-                    .add("misdirected", cargo.getDelivery().isMisdirected())
-                    .add("transportStatus", cargo.getDelivery()
-                            .getTransportStatus().toString())
-                    .add("atDestination", cargo.getDelivery()
-                            .isUnloadedAtDestination())
-                    .add("origin", cargo.getOrigin().getUnLocode().getIdString())
-                    .add("lastKnownLocation",
-                            cargo.getDelivery().getLastKnownLocation().getUnLocode().getIdString().equals("XXXXX")
-                                    ? "Unknown"
-                                    : cargo.getDelivery().getLastKnownLocation().getUnLocode().getIdString())
-            );
+    public Response getAllCargo(@QueryParam("since") Long since,
+            @Context Request request) {
+        Date latestCalculatedAt = cargoStatusRepository
+                .findLatestCalculatedAt();
+        EntityTag version = new EntityTag(latestCalculatedAt == null ? "0"
+                : Long.toString(latestCalculatedAt.getTime()));
+
+        Response.ResponseBuilder notModified = request
+                .evaluatePreconditions(version);
+
+        if (notModified != null) {
+            return notModified.build();
         }
 
-        return builder.build();
+        final CargoStatusFilter filter = new CargoStatusFilter()
+                .calculatedSince(since == null ? null : new Date(since));
+
+        return Response.ok(new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException {
+                try (JsonGenerator generator = Json.createGenerator(output)) {
+                    generator.writeStartArray();
+                    writeCargo(generator, filter);
+                    generator.writeEnd();
+                }
+            }
+        }).tag(version).build();
+    }
+
+    private void writeCargo(JsonGenerator generator,
+            CargoStatusFilter filter) {
+        String after = null;
+        List<CargoStatusProjection> page;
+
+        // The output is written after this bean's transaction has ended, so
+        // every page is read into a persistence context of its own and is
+        // garbage once written.
+        do {
+            page = cargoStatusRepository.find(filter, after, PAGE_SIZE);
+
+            for (CargoStatusProjection cargo : page) {
+                write(generator, cargo);
+            }
+
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getTrackingId();
+            }
+
+            generator.flush();
+        } while (page.size() == PAGE_SIZE);
+    }
+
+    private static void write(JsonGenerator generator,
+            CargoStatusProjection cargo) {
+        generator.writeStartObject()
+                .write("trackingId", cargo.getTrackingId())
+                .write("routingStatus", cargo.getRoutingStatus().toString())
+                .write("misdirected", cargo.isMisdirected())
+                .write("transportStatus", cargo.getTransportStatus()
+                        .toString())
+                .write("atDestination", cargo.isUnloadedAtDestination())
+                .write("origin", cargo.getOriginUnLocode())
+                .write("lastKnownLocation",
+                        cargo.getLastKnownLocationUnLocode().equals(
+                                Location.UNKNOWN.getUnLocode().getIdString())
+                                ? "Unknown"
+                                : cargo.getLastKnownLocationUnLocode())
+                .writeEnd();
     }
 }
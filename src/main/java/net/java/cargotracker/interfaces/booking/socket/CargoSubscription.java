@@ -0,0 +1,98 @@
+package net.java.cargotracker.interfaces.booking.socket;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import net.java.cargotracker.domain.model.cargo.TransportStatus;
+
+/**
+ * The cargos a WebSocket session wants updates for. A subscription message
+ * looks like
+ * <pre>
+ * {"trackingIds": ["ABC123"], "origins": ["CNHKG"],
+ *  "destinations": ["USNYC"], "transportStatuses": ["ONBOARD_CARRIER"]}
+ * </pre>
+ * Origins and destinations are UN/LOCODEs. A cargo has to match every
+ * criterion given, and a criterion that is left out or empty matches any
+ * cargo, so an empty message subscribes to all of them.
+ */
+final class CargoSubscription {
+
+    static final CargoSubscription ALL = new CargoSubscription(
+            Collections.<String>emptySet(), Collections.<String>emptySet(),
+            Collections.<String>emptySet(),
+            Collections.<TransportStatus>emptySet());
+    private final Set<String> trackingIds;
+    private final Set<String> origins;
+    private final Set<String> destinations;
+    private final Set<TransportStatus> transportStatuses;
+
+    CargoSubscription(Set<String> trackingIds, Set<String> origins,
+            Set<String> destinations, Set<TransportStatus> transportStatuses) {
+        this.trackingIds = trackingIds;
+        this.origins = origins;
+        this.destinations = destinations;
+        this.transportStatuses = transportStatuses;
+    }
+
+    /**
+     * @throws javax.json.JsonException if the message isn't a JSON object
+     * @throws IllegalArgumentException if a transport status is unknown
+     * @throws ClassCastException if a criterion isn't an array of strings
+     */
+    static CargoSubscription parse(String message) {
+        JsonObject subscription;
+
+        try (JsonReader reader = Json.createReader(new StringReader(message))) {
+            subscription = reader.readObject();
+        }
+
+        Set<TransportStatus> transportStatuses = new HashSet<>();
+
+        for (String transportStatus : strings(subscription,
+                "transportStatuses")) {
+            transportStatuses.add(TransportStatus.valueOf(transportStatus));
+        }
+
+        return new CargoSubscription(strings(subscription, "trackingIds"),
+                strings(subscription, "origins"),
+                strings(subscription, "destinations"), transportStatuses);
+    }
+
+    private static Set<String> strings(JsonObject object, String name) {
+        Set<String> strings = new HashSet<>();
+        JsonArray array = object.getJsonArray(name);
+
+        if (array != null) {
+            for (int i = 0; i < array.size(); i++) {
+                strings.add(array.getString(i));
+            }
+        }
+
+        return strings;
+    }
+
+    boolean matches(String trackingId, String originUnLocode,
+            String destinationUnLocode, TransportStatus transportStatus) {
+        return matches(trackingIds, trackingId)
+                && matches(origins, originUnLocode)
+                && matches(destinations, destinationUnLocode)
+                && matches(transportStatuses, transportStatus);
+    }
+
+    private static <T> boolean matches(Set<T> criterion, T value) {
+        return criterion.isEmpty() || criterion.contains(value);
+    }
+
+    @Override
+    public String toString() {
+        return "CargoSubscription{" + "trackingIds=" + trackingIds
+                + ", origins=" + origins + ", destinations=" + destinations
+                + ", transportStatuses=" + transportStatuses + "}";
+    }
+}
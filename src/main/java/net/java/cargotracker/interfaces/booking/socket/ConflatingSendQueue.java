@@ -0,0 +1,134 @@
+package net.java.cargotracker.interfaces.booking.socket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Updates waiting to be sent to one WebSocket session, at most one frame of
+ * them in flight at a time. An update replaces the update still waiting for
+ * the same key, since only the latest status of a cargo is of interest, and
+ * once the queue is full the oldest waiting update is dropped to make room.
+ * <p/>
+ * Unbatched, every update is a frame of its own and is sent as soon as the
+ * previous frame has been. Batched, updates are only sent when the queue is
+ * drained, all of them in one frame.
+ */
+class ConflatingSendQueue {
+
+    enum Offer {
+
+        /**
+         * Nothing was in flight, the caller sends the update right away.
+         * Never the case when batched.
+         */
+        SEND,
+        /**
+         * The frame waits for the frame in flight.
+         */
+        QUEUED,
+        /**
+         * The frame replaced a waiting frame for the same key.
+         */
+        CONFLATED,
+        /**
+         * The frame waits, the oldest waiting frame was dropped.
+         */
+        DROPPED
+    }
+
+    private final int capacity;
+    private final boolean batched;
+    private final Map<String, String> waiting = new LinkedHashMap<>();
+    private boolean inFlight;
+
+    /**
+     * @param capacity maximum number of updates waiting
+     * @param batched whether updates wait for the queue to be drained
+     */
+    ConflatingSendQueue(int capacity, boolean batched) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        this.capacity = capacity;
+        this.batched = batched;
+    }
+
+    synchronized Offer offer(String key, String frame) {
+        if (!batched && !inFlight) {
+            inFlight = true;
+            return Offer.SEND;
+        }
+
+        if (waiting.containsKey(key)) {
+            // Keep the place in the queue, only the contents are stale.
+            waiting.put(key, frame);
+            return Offer.CONFLATED;
+        }
+
+        Offer offer = Offer.QUEUED;
+
+        if (waiting.size() >= capacity) {
+            Iterator<String> oldest = waiting.values().iterator();
+            oldest.next();
+            oldest.remove();
+            offer = Offer.DROPPED;
+        }
+
+        waiting.put(key, frame);
+        return offer;
+    }
+
+    /**
+     * Called once the frame in flight has been sent.
+     *
+     * @return The next update to send, now in flight, or null if none is
+     * waiting or the queue is batched.
+     */
+    synchronized String next() {
+        if (batched) {
+            inFlight = false;
+            return null;
+        }
+
+        Iterator<String> oldest = waiting.values().iterator();
+
+        if (oldest.hasNext()) {
+            String frame = oldest.next();
+            oldest.remove();
+            return frame;
+        }
+
+        inFlight = false;
+        return null;
+    }
+
+    /**
+     * Takes every waiting update to be sent in one frame, unless a frame is
+     * still in flight.
+     *
+     * @return The updates to send, now in flight, in the order they were
+     * first offered; empty if there are none or a frame is in flight.
+     */
+    synchronized List<String> drain() {
+        if (inFlight || waiting.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> updates = new ArrayList<>(waiting.values());
+        waiting.clear();
+        inFlight = true;
+        return updates;
+    }
+
+    /**
+     * @return Number of updates waiting, not counting those in flight.
+     */
+    synchronized int size() {
+        return waiting.size();
+    }
+}
@@ -1,70 +1,260 @@
 package net.java.cargotracker.interfaces.booking.socket;
 
-import java.io.IOException;
-import java.io.StringWriter;
-import java.io.Writer;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
 import javax.ejb.Singleton;
+import javax.ejb.Timeout;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
 import javax.enterprise.event.Observes;
-import javax.json.Json;
-import javax.json.stream.JsonGenerator;
 import javax.websocket.OnClose;
+import javax.websocket.OnMessage;
 import javax.websocket.OnOpen;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
 import javax.websocket.Session;
 import javax.websocket.server.ServerEndpoint;
+import net.java.cargotracker.application.projection.CargoStatusSnapshot;
 import net.java.cargotracker.infrastructure.events.cdi.CargoInspected;
-import net.java.cargotracker.domain.model.cargo.Cargo;
 
 /**
  * WebSocket service for tracking all cargoes in real time.
+ * <p/>
+ * A session gets updates for every cargo until it sends a subscription
+ * message, see {@link CargoSubscription}; from then on it only gets updates
+ * for the cargos matching its latest subscription.
+ * <p/>
+ * Updates are sent asynchronously, one frame at a time per session, so
+ * publishing an update never waits for a browser. Updates for a session are
+ * queued up to the send queue capacity. An update replaces the queued update
+ * for the same cargo, and once the queue is full the oldest queued update is
+ * dropped. With a conflation interval the queued updates are sent once per
+ * interval as a single frame holding a JSON array of them, so a session gets
+ * at most one update per cargo and interval. Without one every update is sent
+ * as soon as possible, as a frame holding the JSON object.
  *
  * @author Vijay Nair
  */
 @Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
 @ServerEndpoint("/tracking")
 public class RealtimeCargoTrackingService {
 
     private static final Logger logger = Logger.getLogger(
             RealtimeCargoTrackingService.class.getName());
+    @Resource(name = "sendQueueCapacity")
+    private Integer sendQueueCapacity = 64;
+    @Resource(name = "sendTimeout")
+    private Long sendTimeout = 10000L;
+    @Resource(name = "conflationInterval")
+    private Integer conflationInterval = 1000;
+    @Resource
+    private TimerService timerService;
+    private final ConcurrentMap<Session, Subscriber> subscribers
+            = new ConcurrentHashMap<>();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong conflatedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
 
-    private final Set<Session> sessions = new HashSet<>();
+    @PostConstruct
+    public void startConflation() {
+        if (conflationInterval > 0) {
+            timerService.createIntervalTimer(conflationInterval,
+                    conflationInterval, new TimerConfig(null, false));
+        }
+    }
 
     @OnOpen
     public void onOpen(final Session session) {
-        sessions.add(session);
+        session.getAsyncRemote().setSendTimeout(sendTimeout);
+        subscribers.put(session, new Subscriber(session));
     }
 
     @OnClose
     public void onClose(final Session session) {
-        sessions.remove(session);
+        subscribers.remove(session);
+    }
+
+    @OnMessage
+    public void onMessage(final String message, final Session session) {
+        Subscriber subscriber = subscribers.get(session);
+
+        if (subscriber == null) {
+            return;
+        }
+
+        try {
+            subscriber.subscription = CargoSubscription.parse(message);
+        } catch (RuntimeException e) {
+            logger.log(Level.FINE, "Ignoring invalid subscription " + message,
+                    e);
+        }
+    }
+
+    public void onCargoInspected(
+            @Observes @CargoInspected CargoStatusSnapshot cargo) {
+        for (Subscriber subscriber : subscribers.values()) {
+            if (subscriber.subscription.matches(cargo.getTrackingId(),
+                    cargo.getOriginUnLocode(), cargo.getDestinationUnLocode(),
+                    cargo.getTransportStatus())) {
+                // Only written if somebody is interested, and only once.
+                subscriber.publish(cargo.getTrackingId(), cargo.toJson());
+            }
+        }
     }
 
-    public void onCargoInspected(@Observes @CargoInspected Cargo cargo) {
-        Writer writer = new StringWriter();
-
-        try (JsonGenerator generator = Json.createGenerator(writer)) {
-            generator
-                    .writeStartObject()
-                    .write("trackingId", cargo.getTrackingId().getIdString())
-                    .write("origin", cargo.getOrigin().getName())
-                    .write("destination", cargo.getRouteSpecification().getDestination().getName())
-                    .write("lastKnownLocation", cargo.getDelivery().getLastKnownLocation().getName())
-                    .write("transportStatus", cargo.getDelivery().getTransportStatus().toString())
-                    .writeEnd();
+    /**
+     * Sends every session the updates queued within the last conflation
+     * interval.
+     */
+    @Timeout
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void sendConflated() {
+        for (Subscriber subscriber : subscribers.values()) {
+            subscriber.sendQueued();
+        }
+    }
+
+    /**
+     * @return Number of sessions connected.
+     */
+    public int getSessionCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * @return Number of updates queued over all sessions, not counting those
+     * being sent.
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+
+        for (Subscriber subscriber : subscribers.values()) {
+            depth += subscriber.queue.size();
         }
 
-        String jsonValue = writer.toString();
+        return depth;
+    }
+
+    /**
+     * @return Number of frames sent.
+     */
+    public long getSentCount() {
+        return sentCount.get();
+    }
 
-        for (Session session : sessions) {
+    /**
+     * @return Number of queued updates replaced by a later update for the same
+     * cargo.
+     */
+    public long getConflatedCount() {
+        return conflatedCount.get();
+    }
+
+    /**
+     * @return Number of updates dropped because a send queue was full, plus
+     * the number of frames that couldn't be sent.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "RealtimeCargoTrackingService{sessions=" + getSessionCount()
+                + ", queueDepth=" + getQueueDepth()
+                + ", sent=" + getSentCount()
+                + ", conflated=" + getConflatedCount()
+                + ", dropped=" + getDroppedCount() + "}";
+    }
+
+    private class Subscriber implements SendHandler {
+
+        private final Session session;
+        private final ConflatingSendQueue queue;
+        private volatile CargoSubscription subscription = CargoSubscription.ALL;
+
+        Subscriber(Session session) {
+            this.session = session;
+            this.queue = new ConflatingSendQueue(sendQueueCapacity,
+                    conflationInterval > 0);
+        }
+
+        void publish(String trackingId, String frame) {
+            switch (queue.offer(trackingId, frame)) {
+                case SEND:
+                    send(frame);
+                    break;
+                case CONFLATED:
+                    conflatedCount.incrementAndGet();
+                    break;
+                case DROPPED:
+                    droppedCount.incrementAndGet();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        void sendQueued() {
+            List<String> updates = queue.drain();
+
+            if (!updates.isEmpty()) {
+                StringBuilder frame = new StringBuilder("[");
+
+                for (String update : updates) {
+                    if (frame.length() > 1) {
+                        frame.append(',');
+                    }
+
+                    frame.append(update);
+                }
+
+                send(frame.append(']').toString());
+            }
+        }
+
+        private void send(String frame) {
             try {
-                session.getBasicRemote().sendText(jsonValue);
-            } catch (IOException ex) {
-                logger.log(Level.WARNING, "Unable to publish WebSocket message", ex);
+                session.getAsyncRemote().sendText(frame, this);
+            } catch (RuntimeException e) {
+                // The session has been closed under us.
+                onResult(new SendResult(e));
             }
         }
 
+        @Override
+        public void onResult(SendResult result) {
+            if (result.isOK()) {
+                sentCount.incrementAndGet();
+            } else {
+                droppedCount.incrementAndGet();
+                logger.log(Level.FINE, "Unable to publish WebSocket message",
+                        result.getException());
+
+                if (!session.isOpen()) {
+                    // Nothing more will get through, let the queue go.
+                    subscribers.remove(session);
+                    droppedCount.addAndGet(queue.size());
+                    return;
+                }
+            }
+
+            String next = queue.next();
+
+            if (next != null) {
+                send(next);
+            }
+        }
     }
-}
\ No newline at end of file
+}
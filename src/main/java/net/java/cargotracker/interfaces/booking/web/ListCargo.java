@@ -1,11 +1,10 @@
 package net.java.cargotracker.interfaces.booking.web;
 
-import java.util.ArrayList;
 import java.util.List;
-import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
+import net.java.cargotracker.application.projection.CargoStatusFilter;
 import net.java.cargotracker.interfaces.booking.facade.BookingServiceFacade;
 import net.java.cargotracker.interfaces.booking.facade.dto.CargoRoute;
 
@@ -24,56 +23,76 @@ import net.java.cargotracker.interfaces.booking.facade.dto.CargoRoute;
 @RequestScoped
 public class ListCargo {
 
-    private List<CargoRoute> cargos;
-    private List<CargoRoute> routedCargos;
-    private List<CargoRoute> claimedCargos;
-    private List<CargoRoute> notRoutedCargos;
+    private static final int PAGE_SIZE = 50;
+    private final Page routedCargos = new Page(new CargoStatusFilter()
+            .routed(true).claimed(false));
+    private final Page claimedCargos = new Page(new CargoStatusFilter()
+            .claimed(true));
+    private final Page notRoutedCargos = new Page(new CargoStatusFilter()
+            .routed(false));
     @Inject
     private BookingServiceFacade bookingServiceFacade;
 
-    public List<CargoRoute> getCargos() {
-        return cargos;
+    public Page getRoutedCargos() {
+        return routedCargos;
     }
 
-    @PostConstruct
-    public void init() {
-        cargos = bookingServiceFacade.listAllCargos();
+    public Page getClaimedCargos() {
+        return claimedCargos;
     }
 
-    public List<CargoRoute> getRoutedCargos() {
-        routedCargos = new ArrayList<>();
+    public Page getNotRoutedCargos() {
+        return notRoutedCargos;
+    }
 
-        for (CargoRoute route : cargos) {
-            if (route.isRouted()) {
-                routedCargos.add(route);
-            }
-        }
+    /**
+     * One page of cargos matching a filter, loaded when it is first shown.
+     */
+    public class Page {
 
-        return routedCargos;
-    }
+        private final CargoStatusFilter filter;
+        private String after;
+        private List<CargoRoute> cargos;
+        private boolean hasNext;
 
-    public List<CargoRoute> getClaimedCargos() {
-        claimedCargos = new ArrayList<>();
+        Page(CargoStatusFilter filter) {
+            this.filter = filter;
+        }
 
-        for (CargoRoute route : cargos) {
-            if (route.isClaimed()) {
-                claimedCargos.add(route);
-            }
+        /**
+         * @return Tracking id the page starts after, null for the first page.
+         */
+        public String getAfter() {
+            return after;
         }
 
-        return claimedCargos;
-    }
+        public void setAfter(String after) {
+            this.after = after == null || after.isEmpty() ? null : after;
+        }
 
-    public List<CargoRoute> getNotRoutedCargos() {
-        notRoutedCargos = new ArrayList<>();
+        public List<CargoRoute> getCargos() {
+            if (cargos == null) {
+                // One more than shown, to know if there is a next page.
+                cargos = bookingServiceFacade.listCargos(filter, after,
+                        PAGE_SIZE + 1);
+                hasNext = cargos.size() > PAGE_SIZE;
 
-        for (CargoRoute route : notRoutedCargos) {
-            if (!route.isRouted()) {
-                notRoutedCargos.add(route);
+                if (hasNext) {
+                    cargos = cargos.subList(0, PAGE_SIZE);
+                }
             }
+
+            return cargos;
         }
 
-        return notRoutedCargos;
-    }
+        /**
+         * @return Tracking id the next page starts after, null if this is the
+         * last page.
+         */
+        public String getNext() {
+            List<CargoRoute> page = getCargos();
 
+            return hasNext ? page.get(page.size() - 1).getTrackingId() : null;
+        }
+    }
 }
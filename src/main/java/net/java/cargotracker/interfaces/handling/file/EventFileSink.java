@@ -0,0 +1,56 @@
+package net.java.cargotracker.interfaces.handling.file;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A file lines are appended to through a buffer, optionally gzip compressed.
+ * Lines reach the file when the buffer fills up or is flushed. The lines of a
+ * compressed file up to the last flush can be recovered even if it is never
+ * closed, and every time a file is opened again another gzip member is
+ * appended, which gzip reads as one stream.
+ */
+class EventFileSink implements Closeable, Flushable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final BufferedWriter writer;
+
+    EventFileSink(File file, boolean compressed) throws IOException {
+        OutputStream output = Channels.newOutputStream(FileChannel.open(
+                file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+
+        if (compressed) {
+            // Sync flush, so that flushing makes what was written readable.
+            output = new GZIPOutputStream(output, BUFFER_SIZE, true);
+        }
+
+        this.writer = new BufferedWriter(new OutputStreamWriter(output,
+                StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    synchronized void writeLine(String line) throws IOException {
+        writer.write(line);
+        writer.newLine();
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
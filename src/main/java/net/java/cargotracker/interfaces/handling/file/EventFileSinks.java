@@ -0,0 +1,64 @@
+package net.java.cargotracker.interfaces.handling.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * The archive and failed line files of running jobs, kept open for as long as
+ * the job instance runs instead of being opened for every chunk or line.
+ * They are closed by {@link FileProcessorJobListener} once the job is done.
+ */
+@ApplicationScoped
+public class EventFileSinks {
+
+    private static final Logger logger = Logger.getLogger(
+            EventFileSinks.class.getName());
+    private final Map<Long, Map<File, EventFileSink>> sinks = new HashMap<>();
+
+    /**
+     * @return The open file, opened for appending if it isn't yet.
+     */
+    synchronized EventFileSink get(long jobInstanceId, File file,
+            boolean compressed) throws IOException {
+        Map<File, EventFileSink> instanceSinks = sinks.get(jobInstanceId);
+
+        if (instanceSinks == null) {
+            instanceSinks = new HashMap<>();
+            sinks.put(jobInstanceId, instanceSinks);
+        }
+
+        EventFileSink sink = instanceSinks.get(file);
+
+        if (sink == null) {
+            sink = new EventFileSink(file, compressed);
+            instanceSinks.put(file, sink);
+        }
+
+        return sink;
+    }
+
+    /**
+     * Closes the files of the job instance.
+     */
+    synchronized void close(long jobInstanceId) {
+        Map<File, EventFileSink> instanceSinks = sinks.remove(jobInstanceId);
+
+        if (instanceSinks == null) {
+            return;
+        }
+
+        for (Map.Entry<File, EventFileSink> entry : instanceSinks.entrySet()) {
+            try {
+                entry.getValue().close();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Unable to close " + entry.getKey(),
+                        e);
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package net.java.cargotracker.interfaces.handling.file;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.batch.api.partition.PartitionMapper;
+import javax.batch.api.partition.PartitionPlan;
+import javax.batch.api.partition.PartitionPlanImpl;
+import javax.batch.runtime.context.JobContext;
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/**
+ * Spreads the files in the upload directory over the partitions of the file
+ * processing step, each partition reading and writing its files on a thread
+ * of its own. Files are handed out largest first to the partition with the
+ * fewest bytes so far, so partitions finish at about the same time.
+ * <p/>
+ * The number of partitions is the partition_count job property, or the
+ * number of processors if it is 0, but never more than the number of files.
+ * <p/>
+ * Files still being uploaded are left alone: hidden files and files ending in
+ * .tmp or .part, which are meant to be renamed once complete, and files
+ * modified after the complete_at job property, in milliseconds since the
+ * epoch, if it is set.
+ */
+@Dependent
+@Named("EventFilesPartitionMapper")
+public class EventFilesPartitionMapper implements PartitionMapper {
+
+    static final String FILES = "files";
+    static final String PARTITION = "partition";
+    static final String UPLOAD_DIRECTORY = "upload_directory";
+    static final String COMPLETE_AT = "complete_at";
+    private static final String PARTITION_COUNT = "partition_count";
+    /**
+     * Files that are, or are about to become, uploads.
+     */
+    static final FileFilter UPLOADS = new FileFilter() {
+        @Override
+        public boolean accept(File file) {
+            String name = file.getName();
+
+            return file.isFile() && !name.startsWith(".")
+                    && !name.endsWith(".tmp") && !name.endsWith(".part");
+        }
+    };
+    private static final Logger logger = Logger.getLogger(
+            EventFilesPartitionMapper.class.getName());
+    @Inject
+    private JobContext jobContext;
+
+    @Override
+    public PartitionPlan mapPartitions() throws Exception {
+        File uploadDirectory = new File(
+                jobContext.getProperties().getProperty(UPLOAD_DIRECTORY));
+        File[] files = new File[0];
+
+        logger.log(Level.INFO, "Scanning upload directory: {0}", uploadDirectory);
+
+        if (!uploadDirectory.exists()) {
+            logger.log(Level.INFO, "Upload directory does not exist, creating it");
+            uploadDirectory.mkdirs();
+        } else {
+            files = completeUploads(uploadDirectory, jobContext.getProperties()
+                    .getProperty(COMPLETE_AT));
+        }
+
+        int partitionCount = Integer.parseInt(jobContext.getProperties()
+                .getProperty(PARTITION_COUNT, "0"));
+
+        if (partitionCount <= 0) {
+            partitionCount = Runtime.getRuntime().availableProcessors();
+        }
+
+        // A partition without files just finds nothing to read.
+        partitionCount = Math.max(1, Math.min(partitionCount, files.length));
+
+        String[] partitionFiles = assign(files, partitionCount);
+        Properties[] partitionProperties = new Properties[partitionCount];
+
+        for (int i = 0; i < partitionCount; i++) {
+            partitionProperties[i] = new Properties();
+            partitionProperties[i].setProperty(FILES, partitionFiles[i]);
+            partitionProperties[i].setProperty(PARTITION, Integer.toString(i));
+        }
+
+        logger.log(Level.INFO, "Processing {0} files in {1} partitions",
+                new Object[]{files.length, partitionCount});
+
+        PartitionPlan plan = new PartitionPlanImpl();
+        plan.setPartitions(partitionCount);
+        plan.setThreads(partitionCount);
+        plan.setPartitionProperties(partitionProperties);
+        return plan;
+    }
+
+    private static File[] completeUploads(File uploadDirectory,
+            String completeAt) {
+        final long modifiedBy = completeAt == null || completeAt.isEmpty()
+                ? Long.MAX_VALUE : Long.parseLong(completeAt);
+
+        return uploadDirectory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return UPLOADS.accept(file)
+                        && file.lastModified() <= modifiedBy;
+            }
+        });
+    }
+
+    /**
+     * @return The paths of the files of each partition, separated by the path
+     * separator.
+     */
+    static String[] assign(File[] files, int partitionCount) {
+        File[] largestFirst = files.clone();
+        Arrays.sort(largestFirst, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                return Long.compare(file2.length(), file1.length());
+            }
+        });
+
+        StringBuilder[] paths = new StringBuilder[partitionCount];
+        long[] sizes = new long[partitionCount];
+
+        for (int i = 0; i < partitionCount; i++) {
+            paths[i] = new StringBuilder();
+        }
+
+        for (File file : largestFirst) {
+            int smallest = 0;
+
+            for (int i = 1; i < partitionCount; i++) {
+                if (sizes[i] < sizes[smallest]) {
+                    smallest = i;
+                }
+            }
+
+            if (paths[smallest].length() > 0) {
+                paths[smallest].append(File.pathSeparatorChar);
+            }
+
+            paths[smallest].append(file.getPath());
+            sizes[smallest] += file.length();
+        }
+
+        String[] result = new String[partitionCount];
+
+        for (int i = 0; i < partitionCount; i++) {
+            result[i] = paths[i].toString();
+        }
+
+        return result;
+    }
+}
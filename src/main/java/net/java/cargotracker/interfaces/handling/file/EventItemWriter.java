@@ -1,11 +1,13 @@
 package net.java.cargotracker.interfaces.handling.file;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
-import java.io.PrintWriter;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.batch.api.BatchProperty;
 import javax.batch.api.chunk.AbstractItemWriter;
 import javax.batch.runtime.context.JobContext;
 import javax.enterprise.context.Dependent;
@@ -13,17 +15,59 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.transaction.Transactional;
 import net.java.cargotracker.application.ApplicationEvents;
+import net.java.cargotracker.application.HandlingEventService;
+import net.java.cargotracker.domain.model.handling.CannotCreateHandlingEventException;
 import net.java.cargotracker.interfaces.handling.HandlingEventRegistrationAttempt;
 
+/**
+ * Passes registration attempts on and archives them. The archive is kept open
+ * for the whole job instance and flushed at every checkpoint; it is gzip
+ * compressed if the archive_compression job property is gzip.
+ * <p/>
+ * By default every attempt is queued for registration, like attempts reported
+ * any other way. If the ingestion_mode job property is direct, the attempts
+ * of a chunk are registered right away, in one go and within the chunk
+ * transaction, and attempts that can't be registered are written to a
+ * rejected file in the failed directory along with the reason.
+ */
 @Dependent
 @Named("EventItemWriter")
 public class EventItemWriter extends AbstractItemWriter {
 
     private static final String ARCHIVE_DIRECTORY = "archive_directory";
+    private static final String ARCHIVE_COMPRESSION = "archive_compression";
+    private static final String FAILED_DIRECTORY = "failed_directory";
+    private static final String INGESTION_MODE = "ingestion_mode";
+    private static final Logger logger = Logger.getLogger(
+            EventItemWriter.class.getName());
     @Inject
     private JobContext jobContext;
     @Inject
     private ApplicationEvents applicationEvents;
+    @Inject
+    private HandlingEventService handlingEventService;
+    @Inject
+    private EventFileSinks sinks;
+    // Partitions write archives of their own, rather than interleave lines.
+    @Inject
+    @BatchProperty(name = EventFilesPartitionMapper.PARTITION)
+    private String partition;
+    private EventFileSink archive;
+    private boolean direct;
+    private EventFileSink rejected;
+
+    public EventItemWriter() {
+    }
+
+    EventItemWriter(JobContext jobContext, ApplicationEvents applicationEvents,
+            HandlingEventService handlingEventService, EventFileSinks sinks,
+            String partition) {
+        this.jobContext = jobContext;
+        this.applicationEvents = applicationEvents;
+        this.handlingEventService = handlingEventService;
+        this.sinks = sinks;
+        this.partition = partition;
+    }
 
     @Override
     public void open(Serializable checkpoint) throws Exception {
@@ -32,26 +76,91 @@ public class EventItemWriter extends AbstractItemWriter {
         if (!archiveDirectory.exists()) {
             archiveDirectory.mkdirs();
         }
+
+        boolean compressed = "gzip".equals(jobContext.getProperties()
+                .getProperty(ARCHIVE_COMPRESSION));
+
+        archive = sinks.get(jobContext.getInstanceId(),
+                new File(archiveDirectory, "archive_" + jobContext.getJobName()
+                        + "_" + jobContext.getInstanceId()
+                        + "_" + partition
+                        + (compressed ? ".csv.gz" : ".csv")), compressed);
+
+        direct = "direct".equals(jobContext.getProperties()
+                .getProperty(INGESTION_MODE));
     }
 
     @Override
     @Transactional
     public void writeItems(List<Object> items) throws Exception {
-        try (PrintWriter archive = new PrintWriter(new BufferedWriter(new FileWriter(
-                new File(jobContext.getProperties().getProperty(ARCHIVE_DIRECTORY)
-                        + "/archive_" + jobContext.getJobName()
-                        + "_" + jobContext.getInstanceId()
-                        + ".csv"), true)))) {
-            for (Object item : items) {
-                HandlingEventRegistrationAttempt attempt = (HandlingEventRegistrationAttempt) item;
+        List<HandlingEventRegistrationAttempt> attempts = new ArrayList<>(
+                items.size());
+
+        for (Object item : items) {
+            HandlingEventRegistrationAttempt attempt = (HandlingEventRegistrationAttempt) item;
+            attempts.add(attempt);
+
+            if (!direct) {
                 applicationEvents.receivedHandlingEventRegistrationAttempt(attempt);
-                archive.println(attempt.getRegistrationTime()
-                        + "," + attempt.getCompletionTime()
-                        + "," + attempt.getTrackingId()
-                        + "," + attempt.getVoyageNumber()
-                        + "," + attempt.getUnLocode()
-                        + "," + attempt.getType());
             }
+
+            archive.writeLine(toLine(attempt));
+        }
+
+        if (direct) {
+            reject(handlingEventService.registerHandlingEvents(attempts));
         }
     }
+
+    private void reject(
+            Map<HandlingEventRegistrationAttempt, CannotCreateHandlingEventException> failures)
+            throws Exception {
+        if (failures.isEmpty()) {
+            return;
+        }
+
+        if (rejected == null) {
+            File failedDirectory = new File(jobContext.getProperties()
+                    .getProperty(FAILED_DIRECTORY));
+
+            if (!failedDirectory.exists()) {
+                failedDirectory.mkdirs();
+            }
+
+            rejected = sinks.get(jobContext.getInstanceId(),
+                    new File(failedDirectory, "rejected_" + jobContext.getJobName()
+                            + "_" + jobContext.getInstanceId()
+                            + "_" + partition
+                            + ".csv"), false);
+        }
+
+        for (Map.Entry<HandlingEventRegistrationAttempt, CannotCreateHandlingEventException> failure
+                : failures.entrySet()) {
+            logger.log(Level.WARNING, "Rejecting registration attempt {0}: {1}",
+                    new Object[]{failure.getKey(),
+                        failure.getValue().getMessage()});
+            rejected.writeLine(toLine(failure.getKey()) + ","
+                    + failure.getValue().getMessage());
+        }
+    }
+
+    private static String toLine(HandlingEventRegistrationAttempt attempt) {
+        return attempt.getRegistrationTime()
+                + "," + attempt.getCompletionTime()
+                + "," + attempt.getTrackingId()
+                + "," + attempt.getVoyageNumber()
+                + "," + attempt.getUnLocode()
+                + "," + attempt.getType();
+    }
+
+    @Override
+    public Serializable checkpointInfo() throws Exception {
+        archive.flush();
+
+        if (rejected != null) {
+            rejected.flush();
+        }
+
+        return null;
+    }
 }
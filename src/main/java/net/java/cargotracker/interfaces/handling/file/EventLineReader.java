@@ -0,0 +1,336 @@
+package net.java.cargotracker.interfaces.handling.file;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import net.java.cargotracker.domain.model.cargo.TrackingId;
+import net.java.cargotracker.domain.model.handling.HandlingEvent;
+import net.java.cargotracker.domain.model.location.UnLocode;
+import net.java.cargotracker.domain.model.voyage.VoyageNumber;
+import net.java.cargotracker.interfaces.handling.HandlingEventRegistrationAttempt;
+
+/**
+ * Reads handling event registration attempts from a CSV file, one per line:
+ * <pre>
+ * completion time (yyyy-MM-dd HH:mm),tracking id,voyage number,UN/LOCODE,type
+ * </pre>
+ * The voyage number may be empty. Lines end with a line feed, a carriage
+ * return or both, and are decoded as UTF-8.
+ * <p/>
+ * The file is read through a large buffer and the fields are parsed straight
+ * from it; only the tracking id becomes a string of its own. UN/LOCODEs and
+ * voyage numbers repeat a lot within a file, so they are looked up in small
+ * tables of the ones seen last instead of being created for every line.
+ * <p/>
+ * Not thread safe, every reader has its own buffer and tables.
+ */
+class EventLineReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final HandlingEvent.Type[] TYPES = HandlingEvent.Type
+            .values();
+    private static final byte[][] TYPE_NAMES = new byte[TYPES.length][];
+
+    static {
+        for (int i = 0; i < TYPES.length; i++) {
+            TYPE_NAMES[i] = TYPES[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private byte[] bytes = buffer.array();
+    // File position of bytes[0].
+    private long bufferPosition;
+    private int limit;
+    private int lineStart;
+    private int lineEnd;
+    private int nextLineStart;
+    private boolean endOfFile;
+    private final int[] commas = new int[4];
+    // Year, month, day, hour and minute.
+    private final int[] timeFields = new int[5];
+    private final Calendar calendar = Calendar.getInstance();
+    private final Interner<UnLocode> unLocodes = new Interner<>();
+    private final Interner<VoyageNumber> voyageNumbers = new Interner<>();
+
+    /**
+     * @param position byte offset of the line to start at, 0 for the start of
+     * the file
+     */
+    EventLineReader(File file, long position) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.channel.position(position);
+        this.bufferPosition = position;
+    }
+
+    /**
+     * Moves on to the next line.
+     *
+     * @return false if the end of the file has been reached.
+     */
+    boolean nextLine() throws IOException {
+        int scan = nextLineStart;
+
+        while (true) {
+            for (; scan < limit; scan++) {
+                byte b = bytes[scan];
+
+                if (b == '\n' || b == '\r') {
+                    if (b == '\r' && scan + 1 == limit && !endOfFile) {
+                        // Might be followed by a line feed, read on first.
+                        break;
+                    }
+
+                    lineStart = nextLineStart;
+                    lineEnd = scan;
+                    nextLineStart = scan + 1;
+
+                    if (b == '\r' && nextLineStart < limit
+                            && bytes[nextLineStart] == '\n') {
+                        nextLineStart++;
+                    }
+
+                    return true;
+                }
+            }
+
+            if (endOfFile) {
+                if (nextLineStart < limit) {
+                    lineStart = nextLineStart;
+                    lineEnd = limit;
+                    nextLineStart = limit;
+                    return true;
+                }
+
+                return false;
+            }
+
+            scan -= fill();
+        }
+    }
+
+    /**
+     * Reads more of the file, moving the unread part of the buffer to its
+     * start first and growing the buffer if a line doesn't fit.
+     *
+     * @return The number of bytes the unread part moved by.
+     */
+    private int fill() throws IOException {
+        int moved = nextLineStart;
+
+        if (moved > 0) {
+            System.arraycopy(bytes, moved, bytes, 0, limit - moved);
+            bufferPosition += moved;
+            limit -= moved;
+            nextLineStart = 0;
+        }
+
+        if (limit == bytes.length) {
+            ByteBuffer larger = ByteBuffer.allocate(bytes.length * 2);
+            larger.put(bytes, 0, limit);
+            buffer = larger;
+            bytes = larger.array();
+        }
+
+        buffer.limit(bytes.length);
+        buffer.position(limit);
+
+        int read = channel.read(buffer);
+
+        if (read < 0) {
+            endOfFile = true;
+        } else {
+            limit += read;
+        }
+
+        return moved;
+    }
+
+    /**
+     * @return Byte offset of the line after the current one, where reading
+     * resumes from a checkpoint.
+     */
+    long getPosition() {
+        return bufferPosition + nextLineStart;
+    }
+
+    /**
+     * @return The current line as a registration attempt registered now.
+     * @throws EventLineParseException if the line isn't valid
+     */
+    HandlingEventRegistrationAttempt parseLine() {
+        int count = 0;
+
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (bytes[i] == ',') {
+                if (count == commas.length) {
+                    throw new EventLineParseException(
+                            "Wrong number of data elements", line());
+                }
+
+                commas[count++] = i;
+            }
+        }
+
+        if (count != commas.length) {
+            throw new EventLineParseException("Wrong number of data elements",
+                    line());
+        }
+
+        Date completionTime = parseCompletionTime(lineStart, commas[0]);
+        TrackingId trackingId = new TrackingId(string(commas[0] + 1,
+                commas[1]));
+        VoyageNumber voyageNumber = parseVoyageNumber(commas[1] + 1, commas[2]);
+        UnLocode unLocode = parseUnLocode(commas[2] + 1, commas[3]);
+        HandlingEvent.Type type = parseType(commas[3] + 1, lineEnd);
+
+        return new HandlingEventRegistrationAttempt(new Date(), completionTime,
+                trackingId, voyageNumber, type, unLocode);
+    }
+
+    private Date parseCompletionTime(int from, int to) {
+        int[] fields = timeFields;
+        Arrays.fill(fields, 0);
+        int field = 0;
+        int digits = 0;
+
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+
+            if (b >= '0' && b <= '9' && digits < 9) {
+                fields[field] = fields[field] * 10 + (b - '0');
+                digits++;
+            } else if (digits > 0 && field < 4
+                    && b == (field < 2 ? '-' : field == 2 ? ' ' : ':')) {
+                field++;
+                digits = 0;
+            } else {
+                throw new EventLineParseException(
+                        "Cannot parse completion time", line());
+            }
+        }
+
+        if (field != 4 || digits == 0) {
+            throw new EventLineParseException("Cannot parse completion time",
+                    line());
+        }
+
+        // Lenient, like SimpleDateFormat.
+        calendar.clear();
+        calendar.set(fields[0], fields[1] - 1, fields[2], fields[3], fields[4]);
+        return calendar.getTime();
+    }
+
+    private VoyageNumber parseVoyageNumber(int from, int to) {
+        if (from == to) {
+            return null;
+        }
+
+        VoyageNumber voyageNumber = voyageNumbers.get(bytes, from, to);
+
+        if (voyageNumber == null) {
+            voyageNumber = new VoyageNumber(string(from, to));
+            voyageNumbers.put(bytes, from, to, voyageNumber);
+        }
+
+        return voyageNumber;
+    }
+
+    private UnLocode parseUnLocode(int from, int to) {
+        UnLocode unLocode = unLocodes.get(bytes, from, to);
+
+        if (unLocode == null) {
+            try {
+                unLocode = new UnLocode(string(from, to));
+            } catch (IllegalArgumentException e) {
+                throw new EventLineParseException(
+                        "Cannot parse UN location code", e, line());
+            }
+
+            unLocodes.put(bytes, from, to, unLocode);
+        }
+
+        return unLocode;
+    }
+
+    private HandlingEvent.Type parseType(int from, int to) {
+        for (int i = 0; i < TYPE_NAMES.length; i++) {
+            if (Interner.equal(TYPE_NAMES[i], bytes, from, to)) {
+                return TYPES[i];
+            }
+        }
+
+        throw new EventLineParseException("Cannot parse event type", line());
+    }
+
+    private String string(int from, int to) {
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    private String line() {
+        return string(lineStart, lineEnd);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Values by their bytes, a fixed number of slots that are overwritten on
+     * collision.
+     */
+    private static final class Interner<T> {
+
+        private static final int SIZE = 256;
+        private final byte[][] keys = new byte[SIZE][];
+        private final Object[] values = new Object[SIZE];
+
+        @SuppressWarnings("unchecked")
+        T get(byte[] bytes, int from, int to) {
+            int slot = slot(bytes, from, to);
+
+            return equal(keys[slot], bytes, from, to) ? (T) values[slot] : null;
+        }
+
+        void put(byte[] bytes, int from, int to, T value) {
+            int slot = slot(bytes, from, to);
+            byte[] key = new byte[to - from];
+            System.arraycopy(bytes, from, key, 0, key.length);
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        private static int slot(byte[] bytes, int from, int to) {
+            int hash = 0;
+
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+
+            return (hash ^ (hash >>> 16)) & (SIZE - 1);
+        }
+
+        static boolean equal(byte[] key, byte[] bytes, int from, int to) {
+            if (key == null || key.length != to - from) {
+                return false;
+            }
+
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != bytes[from + i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -4,7 +4,9 @@ import java.util.Date;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.batch.api.listener.JobListener;
+import javax.batch.runtime.context.JobContext;
 import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
 import javax.inject.Named;
 
 @Dependent
@@ -13,6 +15,10 @@ public class FileProcessorJobListener implements JobListener {
 
     private static final Logger logger = Logger.getLogger(
             FileProcessorJobListener.class.getName());
+    @Inject
+    private JobContext jobContext;
+    @Inject
+    private EventFileSinks sinks;
 
     @Override
     public void beforeJob() throws Exception {
@@ -23,6 +29,7 @@ public class FileProcessorJobListener implements JobListener {
 
     @Override
     public void afterJob() throws Exception {
+        sinks.close(jobContext.getInstanceId());
         logger.log(Level.INFO,
                 "Handling event file processor batch job completed at {0}",
                 new Date());
@@ -1,47 +1,76 @@
 package net.java.cargotracker.interfaces.handling.file;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
-import java.io.PrintWriter;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.batch.api.BatchProperty;
+import javax.batch.api.chunk.listener.ChunkListener;
 import javax.batch.api.chunk.listener.SkipReadListener;
 import javax.batch.runtime.context.JobContext;
 import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+/**
+ * Writes lines that can't be parsed to a file of their own. The file is kept
+ * open for the whole job instance and flushed after every chunk.
+ */
 @Dependent
 @Named("LineParseExceptionListener")
-public class LineParseExceptionListener implements SkipReadListener {
+public class LineParseExceptionListener implements SkipReadListener,
+        ChunkListener {
 
     private static final String FAILED_DIRECTORY = "failed_directory";
     private static final Logger logger = Logger.getLogger(
             LineParseExceptionListener.class.getName());
     @Inject
     private JobContext jobContext;
+    @Inject
+    private EventFileSinks sinks;
+    @Inject
+    @BatchProperty(name = EventFilesPartitionMapper.PARTITION)
+    private String partition;
+    private EventFileSink failed;
 
     @Override
     public void onSkipReadItem(Exception e) throws Exception {
-        File failedDirectory = new File(jobContext.getProperties().getProperty(
-                FAILED_DIRECTORY));
-
-        if (!failedDirectory.exists()) {
-            failedDirectory.mkdirs();
-        }
-
         EventLineParseException parseException = (EventLineParseException) e;
 
         logger.log(Level.WARNING, "Problem parsing event file line",
                 parseException);
 
-        try (PrintWriter failed = new PrintWriter(new BufferedWriter(new FileWriter(
-                new File(failedDirectory,
-                        "failed_" + jobContext.getJobName()
-                        + "_" + jobContext.getInstanceId()
-                        + ".csv"), true)))) {
-            failed.println(parseException.getLine());
+        if (failed == null) {
+            File failedDirectory = new File(jobContext.getProperties()
+                    .getProperty(FAILED_DIRECTORY));
+
+            if (!failedDirectory.exists()) {
+                failedDirectory.mkdirs();
+            }
+
+            failed = sinks.get(jobContext.getInstanceId(),
+                    new File(failedDirectory, "failed_" + jobContext.getJobName()
+                            + "_" + jobContext.getInstanceId()
+                            + "_" + partition
+                            + ".csv"), false);
+        }
+
+        failed.writeLine(parseException.getLine());
+    }
+
+    @Override
+    public void beforeChunk() throws Exception {
+        // Nothing to do.
+    }
+
+    @Override
+    public void afterChunk() throws Exception {
+        if (failed != null) {
+            failed.flush();
         }
     }
+
+    @Override
+    public void onError(Exception e) throws Exception {
+        afterChunk();
+    }
 }
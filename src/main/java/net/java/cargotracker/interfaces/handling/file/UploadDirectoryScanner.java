@@ -1,23 +1,248 @@
 package net.java.cargotracker.interfaces.handling.file;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
 import javax.batch.operations.JobOperator;
+import javax.batch.operations.NoSuchJobException;
 import javax.batch.runtime.BatchRuntime;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
 import javax.ejb.Schedule;
-import javax.ejb.Stateless;
+import javax.ejb.SessionContext;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.concurrent.ManagedExecutorService;
 
 /**
- * Periodically scans a certain directory for files and attempts to parse
- * handling event registrations from the contents by calling a batch job.
+ * Watches a certain directory for files and attempts to parse handling event
+ * registrations from the contents by calling a batch job.
+ * <p/>
+ * A file is processed once it is complete, that is once it has neither grown
+ * nor been modified for the settle time. Uploads that are renamed into the
+ * directory are complete right away, as long as they are written under a
+ * name that isn't picked up, see {@link EventFilesPartitionMapper}. The job
+ * is started as soon as any file is complete and no instance of it is running
+ * already, and takes only the complete files. The others are checked again
+ * until they are complete too.
  * <p/>
  * Files that fail to parse are moved into a separate directory, successful
  * files are deleted.
  */
-@Stateless
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
 public class UploadDirectoryScanner {
 
-    @Schedule(minute = "*/2", hour = "*") // Runs every fifteen minutes
+    private static final String JOB_NAME = "EventFilesProcessorJob";
+    private static final Logger logger = Logger.getLogger(
+            UploadDirectoryScanner.class.getName());
+    @Resource(name = "uploadDirectory")
+    private String uploadDirectory = "/tmp/uploads";
+    @Resource(name = "settleTime")
+    private Integer settleTime = 2000;
+    @Resource
+    private SessionContext context;
+    @Resource
+    private TimerService timerService;
+    @Resource
+    private ManagedExecutorService executorService;
+    private WatchService watchService;
+    private final AtomicBoolean checkArmed = new AtomicBoolean();
+    // Sizes of the files found by the previous check.
+    private Map<String, Long> sizes = new HashMap<>();
+
+    @PostConstruct
+    public void startWatching() {
+        Path directory = Paths.get(uploadDirectory);
+
+        try {
+            Files.createDirectories(directory);
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Unable to watch upload directory "
+                    + directory + ", falling back to periodic scans", e);
+            return;
+        }
+
+        // Calls go through the container, the watching thread isn't ours.
+        final UploadDirectoryScanner scanner = context.getBusinessObject(
+                UploadDirectoryScanner.class);
+
+        executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                watch(scanner);
+            }
+        });
+
+        // Files uploaded while we weren't watching.
+        scheduleCheck();
+    }
+
+    private void watch(UploadDirectoryScanner scanner) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                // Overflows included, the check looks at the directory itself.
+                key.pollEvents();
+                scanner.scheduleCheck();
+
+                if (!key.reset()) {
+                    logger.log(Level.WARNING,
+                            "Upload directory {0} is no longer accessible",
+                            uploadDirectory);
+                    return;
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Shutting down.
+        }
+    }
+
+    @PreDestroy
+    public void stopWatching() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Unable to close watch service", e);
+            }
+        }
+    }
+
+    /**
+     * Checks for complete files after the settle time, unless a check is
+     * pending already.
+     */
+    public void scheduleCheck() {
+        if (checkArmed.compareAndSet(false, true)) {
+            timerService.createSingleActionTimer(settleTime,
+                    new TimerConfig(null, false));
+        }
+    }
+
+    /**
+     * In case a change went unnoticed.
+     */
+    @Schedule(minute = "*/15", hour = "*", persistent = false)
     public void processFiles() {
+        scheduleCheck();
+    }
+
+    @Timeout
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public synchronized void checkFiles() {
+        // Rearm first, changes from now on need another check.
+        checkArmed.set(false);
+
+        long now = System.currentTimeMillis();
+        File[] files = new File(uploadDirectory).listFiles(
+                EventFilesPartitionMapper.UPLOADS);
+        Map<String, Long> previousSizes = sizes;
+        sizes = new HashMap<>();
+
+        if (files == null || files.length == 0) {
+            return;
+        }
+
+        for (File file : files) {
+            sizes.put(file.getName(), file.length());
+        }
+
+        long completeAt = completeAt(files, previousSizes, now, settleTime);
+        int completeCount = countComplete(files, completeAt);
+
+        if (completeCount < files.length) {
+            scheduleCheck();
+        }
+
+        if (completeCount == 0) {
+            return;
+        }
+
+        if (isJobRunning()) {
+            // Looked at again until the job has taken the files.
+            scheduleCheck();
+            return;
+        }
+
+        Properties parameters = new Properties();
+        parameters.setProperty(EventFilesPartitionMapper.UPLOAD_DIRECTORY,
+                uploadDirectory);
+        parameters.setProperty(EventFilesPartitionMapper.COMPLETE_AT,
+                Long.toString(completeAt));
+
+        logger.log(Level.INFO, "Processing {0} of {1} uploaded files",
+                new Object[]{completeCount, files.length});
+        BatchRuntime.getJobOperator().start(JOB_NAME, parameters);
+    }
+
+    /**
+     * @return The complete_at job property for the files, the latest
+     * modification time of a complete file. Files modified within the settle
+     * time are not complete, nor are files whose size changed since the
+     * previous check, in case the file system is slow to update modification
+     * times, so the result is below the modification times of both.
+     */
+    static long completeAt(File[] files, Map<String, Long> previousSizes,
+            long now, long settleTime) {
+        long completeAt = now - settleTime;
+
+        for (File file : files) {
+            Long previousSize = previousSizes.get(file.getName());
+
+            if (previousSize != null && previousSize != file.length()) {
+                completeAt = Math.min(completeAt, file.lastModified() - 1);
+            }
+        }
+
+        return completeAt;
+    }
+
+    static int countComplete(File[] files, long completeAt) {
+        int count = 0;
+
+        for (File file : files) {
+            if (file.lastModified() <= completeAt) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private boolean isJobRunning() {
         JobOperator jobOperator = BatchRuntime.getJobOperator();
-        jobOperator.start("EventFilesProcessorJob", null);
+
+        try {
+            return !jobOperator.getRunningExecutions(JOB_NAME).isEmpty();
+        } catch (NoSuchJobException e) {
+            // Never run.
+            return false;
+        }
     }
 }
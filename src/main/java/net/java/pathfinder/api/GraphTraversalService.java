@@ -1,26 +1,52 @@
 package net.java.pathfinder.api;
 
-import java.util.*;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
 import javax.ejb.Stateless;
 import javax.inject.Inject;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import net.java.pathfinder.internal.GraphDao;
+import net.java.pathfinder.internal.TimeDependentPathFinder;
+import net.java.pathfinder.internal.TransitGraph;
 
+/**
+ * Finds candidate paths through the published voyage schedules, departing no
+ * earlier than the departure query parameter.
+ */
 @Stateless
 @Path("/graph-traversal")
 public class GraphTraversalService {
 
+    public static final String ISO_8601_FORMAT = "yyyy-MM-dd HH:mm";
+    private static final int MAX_CANDIDATES = 5;
     @Inject
     private GraphDao dao;
-    private final Random random = new Random();
-    private static final long ONE_MIN_MS = 1000 * 60;
-    private static final long ONE_DAY_MS = ONE_MIN_MS * 60 * 24;
+    // Search state is reused across requests to this pooled instance.
+    private TimeDependentPathFinder pathFinder;
 
+    public GraphTraversalService() {
+    }
+
+    GraphTraversalService(GraphDao dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * @param departure earliest departure, formatted as {@link #ISO_8601_FORMAT};
+     * the current time if omitted
+     * @param deadline arrival deadline, formatted as {@link #ISO_8601_FORMAT};
+     * none if omitted
+     */
     @GET
     @Path("/shortest-path")
     @Produces({"application/json", "application/xml; qs=.75"})
@@ -28,67 +54,81 @@ public class GraphTraversalService {
     public List<TransitPath> findShortestPath(
             @NotNull @Size(min = 5, max = 5) @QueryParam("origin") String originUnLocode,
             @NotNull @Size(min = 5, max = 5) @QueryParam("destination") String destinationUnLocode,
+            @QueryParam("departure") String departure,
             @QueryParam("deadline") String deadline) {
-        Date date = nextDate(new Date());
-
-        List<String> allVertices = dao.listLocations();
-        allVertices.remove(originUnLocode);
-        allVertices.remove(destinationUnLocode);
-
-        int candidateCount = getRandomNumberOfCandidates();
-        List<TransitPath> candidates = new ArrayList<>(
-                candidateCount);
-
-        for (int i = 0; i < candidateCount; i++) {
-            allVertices = getRandomChunkOfLocations(allVertices);
-            List<TransitEdge> transitEdges = new ArrayList<>(
-                    allVertices.size() - 1);
-            String firstLegTo = allVertices.get(0);
-
-            Date fromDate = nextDate(date);
-            Date toDate = nextDate(fromDate);
-            date = nextDate(toDate);
-
-            transitEdges.add(new TransitEdge(
-                    dao.getVoyageNumber(originUnLocode, firstLegTo),
-                    originUnLocode, firstLegTo, fromDate, toDate));
-
-            for (int j = 0; j < allVertices.size() - 1; j++) {
-                String current = allVertices.get(j);
-                String next = allVertices.get(j + 1);
-                fromDate = nextDate(date);
-                toDate = nextDate(fromDate);
-                date = nextDate(toDate);
-                transitEdges.add(new TransitEdge(dao.getVoyageNumber(current,
-                        next), current, next, fromDate, toDate));
-            }
+        TransitGraph graph = dao.getGraph();
+        int origin = graph.getLocationId(originUnLocode);
+        int destination = graph.getLocationId(destinationUnLocode);
+
+        if (origin < 0 || destination < 0) {
+            return Collections.emptyList();
+        }
+
+        if (pathFinder == null || pathFinder.getGraph() != graph) {
+            pathFinder = new TimeDependentPathFinder(graph);
+        }
+
+        List<int[]> paths = pathFinder.findPaths(origin, destination,
+                parseTime(departure, "Departure", System.currentTimeMillis()),
+                parseTime(deadline, "Deadline",
+                        TimeDependentPathFinder.NO_DEADLINE),
+                MAX_CANDIDATES);
 
-            String lastLegFrom = allVertices.get(allVertices.size() - 1);
-            fromDate = nextDate(date);
-            toDate = nextDate(fromDate);
-            transitEdges.add(new TransitEdge(
-                    dao.getVoyageNumber(lastLegFrom, destinationUnLocode),
-                    lastLegFrom, destinationUnLocode, fromDate, toDate));
+        List<TransitPath> candidates = new ArrayList<>(paths.size());
 
-            candidates.add(new TransitPath(transitEdges));
+        for (int[] path : paths) {
+            candidates.add(toTransitPath(graph, path));
         }
 
         return candidates;
     }
 
-    private Date nextDate(Date date) {
-        return new Date(date.getTime() + ONE_DAY_MS
-                + (random.nextInt(1000) - 500) * ONE_MIN_MS);
+    /**
+     * Rebuilds the graph after the voyage schedules have changed. Not exposed
+     * as a resource, the schedules belong to the application hosting us.
+     */
+    public void schedulesChanged() {
+        dao.reload();
     }
 
-    private int getRandomNumberOfCandidates() {
-        return 3 + random.nextInt(3);
+    private long parseTime(String time, String name, long absent) {
+        if (time == null || time.isEmpty()) {
+            return absent;
+        }
+
+        try {
+            return new SimpleDateFormat(ISO_8601_FORMAT).parse(time).getTime();
+        } catch (ParseException e) {
+            throw new BadRequestException(name + " must be formatted as "
+                    + ISO_8601_FORMAT, e);
+        }
     }
 
-    private List<String> getRandomChunkOfLocations(List<String> allLocations) {
-        Collections.shuffle(allLocations);
-        int total = allLocations.size();
-        int chunk = total > 4 ? 1 + new Random().nextInt(5) : total;
-        return allLocations.subList(0, chunk);
+    /**
+     * Consecutive movements on the same voyage are merged into one edge, since
+     * the cargo stays on board between them.
+     */
+    private TransitPath toTransitPath(TransitGraph graph, int[] path) {
+        List<TransitEdge> transitEdges = new ArrayList<>(path.length);
+        int first = path[0];
+
+        for (int i = 1; i <= path.length; i++) {
+            int previous = path[i - 1];
+
+            if (i == path.length || !graph.getVoyageNumber(path[i]).equals(
+                    graph.getVoyageNumber(previous))) {
+                transitEdges.add(new TransitEdge(graph.getVoyageNumber(first),
+                        graph.getUnLocode(graph.getDepartureLocation(first)),
+                        graph.getUnLocode(graph.getArrivalLocation(previous)),
+                        new Date(graph.getDepartureTime(first)),
+                        new Date(graph.getArrivalTime(previous))));
+
+                if (i < path.length) {
+                    first = path[i];
+                }
+            }
+        }
+
+        return new TransitPath(transitEdges);
     }
 }
@@ -1,37 +1,164 @@
 package net.java.pathfinder.internal;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
-import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.enterprise.context.ApplicationScoped;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
+/**
+ * Provides the transit graph the pathfinder searches. The graph is mapped from
+ * the {@link TransitGraphSnapshot snapshot} file if there is a valid one, and
+ * otherwise built from the persisted voyage schedules. It is kept until it is
+ * reloaded or a newer snapshot file appears, which is swapped in atomically;
+ * searches already running keep the graph they started with.
+ * <p/>
+ * Whenever the graph is built from the schedules it is exported as the
+ * snapshot, so the other nodes pick up the same graph without querying for
+ * the schedules themselves.
+ * <p/>
+ * The voyage schedules are read as plain values, so the pathfinder does not
+ * depend on the voyage classes of the core application.
+ */
 @ApplicationScoped
 public class GraphDao implements Serializable {
 
-    private final Random random = new Random();
+    private static final long serialVersionUID = 1L;
+    private static final String CARRIER_MOVEMENTS_QUERY
+            = "Select v.voyageNumber.number, "
+            + "m.departureLocation.unLocode.unlocode, "
+            + "m.arrivalLocation.unLocode.unlocode, "
+            + "m.departureTime, m.arrivalTime "
+            + "from Voyage v join v.schedule.carrierMovements m";
+    private static final Logger logger = Logger.getLogger(
+            GraphDao.class.getName());
+    // How often the snapshot file is checked for a newer version.
+    private static final long SNAPSHOT_CHECK_INTERVAL = 10 * 1000;
+    @PersistenceContext
+    private EntityManager entityManager;
+    private final File snapshotFile = TransitGraphSnapshot.getDefaultFile();
+    private transient volatile TransitGraph graph;
+    // Modification time of the snapshot file that was last tried.
+    private transient volatile long snapshotModified;
+    private transient volatile long nextSnapshotCheck;
 
-    public List<String> listLocations() {
-        return new ArrayList<>(Arrays.asList("CNHKG", "AUMEL", "SESTO",
-                "FIHEL", "USCHI", "JNTKO", "DEHAM", "CNSHA", "NLRTM", "SEGOT",
-                "CNHGH", "USNYC", "USDAL"));
+    public TransitGraph getGraph() {
+        TransitGraph current = graph;
+
+        if (current == null) {
+            synchronized (this) {
+                if (graph == null) {
+                    refresh();
+                }
+
+                current = graph;
+            }
+        } else if (System.currentTimeMillis() >= nextSnapshotCheck) {
+            current = swapInNewerSnapshot();
+        }
+
+        return current;
+    }
+
+    /**
+     * Loads the graph for the first time. The snapshot is preferred over
+     * querying the database.
+     */
+    private void refresh() {
+        nextSnapshotCheck = System.currentTimeMillis()
+                + SNAPSHOT_CHECK_INTERVAL;
+
+        if (!snapshotFile.isFile() || !mapSnapshot()) {
+            graph = loadGraph();
+        }
+    }
+
+    /**
+     * Rebuilds the graph from the voyage schedules after they have changed,
+     * and exports it as the snapshot.
+     */
+    public synchronized void reload() {
+        nextSnapshotCheck = System.currentTimeMillis()
+                + SNAPSHOT_CHECK_INTERVAL;
+        graph = loadGraph();
+    }
+
+    private synchronized TransitGraph swapInNewerSnapshot() {
+        if (System.currentTimeMillis() >= nextSnapshotCheck) {
+            nextSnapshotCheck = System.currentTimeMillis()
+                    + SNAPSHOT_CHECK_INTERVAL;
+
+            if (snapshotFile.lastModified() > snapshotModified) {
+                mapSnapshot();
+            }
+        }
+
+        return graph;
+    }
+
+    /**
+     * @return Whether a valid snapshot was mapped and has replaced the graph.
+     */
+    private boolean mapSnapshot() {
+        long modified = snapshotFile.lastModified();
+
+        try {
+            TransitGraph mapped = TransitGraphSnapshot.map(snapshotFile);
+            graph = mapped;
+            snapshotModified = modified;
+            logger.log(Level.INFO,
+                    "Mapped transit graph snapshot {0} with {1} locations and {2} carrier movements",
+                    new Object[]{snapshotFile, mapped.getLocationCount(),
+                        mapped.getConnectionCount()});
+
+            return true;
+        } catch (IOException e) {
+            // Don't retry the same broken file on every check.
+            snapshotModified = modified;
+            logger.log(Level.WARNING, "Ignoring transit graph snapshot "
+                    + snapshotFile, e);
+
+            return false;
+        }
+    }
+
+    private TransitGraph loadGraph() {
+        List<Object[]> movements = entityManager.createQuery(
+                CARRIER_MOVEMENTS_QUERY, Object[].class).getResultList();
+        TransitGraph.Builder builder = new TransitGraph.Builder();
+
+        for (Object[] movement : movements) {
+            builder.addMovement((String) movement[0], (String) movement[1],
+                    (String) movement[2], ((Date) movement[3]).getTime(),
+                    ((Date) movement[4]).getTime());
+        }
+
+        TransitGraph loaded = builder.build();
+        logger.log(Level.INFO,
+                "Loaded transit graph with {0} locations and {1} carrier movements",
+                new Object[]{loaded.getLocationCount(),
+                    loaded.getConnectionCount()});
+        exportSnapshot(builder);
+
+        return loaded;
     }
 
-    public String getVoyageNumber(String from, String to) {
-        int i = random.nextInt(5);
-
-        switch (i) {
-            case 0:
-                return "0100S";
-            case 1:
-                return "0200T";
-            case 2:
-                return "0300A";
-            case 3:
-                return "0301S";
-            default:
-                return "0400S";
+    private void exportSnapshot(TransitGraph.Builder builder) {
+        try {
+            TransitGraphSnapshot.write(builder, snapshotFile);
+            // Our own export is no newer than the graph we have.
+            snapshotModified = snapshotFile.lastModified();
+            logger.log(Level.INFO, "Exported transit graph snapshot to {0}",
+                    snapshotFile);
+        } catch (IOException e) {
+            // The other nodes query for the schedules themselves.
+            logger.log(Level.WARNING, "Unable to export transit graph snapshot "
+                    + snapshotFile, e);
         }
     }
 }
@@ -0,0 +1,121 @@
+package net.java.pathfinder.internal;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of integer ids with long keys, supporting decrease-key. The
+ * arrays are sized once for a fixed id range and reused between searches, so
+ * neither entries nor keys are ever boxed.
+ */
+class IndexedMinHeap {
+
+    private static final int ABSENT = -1;
+    private final int[] heap;
+    private final int[] positions;
+    private final long[] keys;
+    private int size;
+
+    IndexedMinHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.keys = new long[capacity];
+        Arrays.fill(positions, ABSENT);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = ABSENT;
+        }
+
+        size = 0;
+    }
+
+    /**
+     * Adds the id with the given key, or lowers its key if it is already in
+     * the heap with a higher one.
+     */
+    void insertOrDecrease(int id, long key) {
+        int position = positions[id];
+
+        if (position == ABSENT) {
+            position = size++;
+            heap[position] = id;
+            positions[id] = position;
+        } else if (key >= keys[id]) {
+            return;
+        }
+
+        keys[id] = key;
+        siftUp(position);
+    }
+
+    /**
+     * @return The id with the lowest key, which is removed from the heap.
+     */
+    int poll() {
+        int min = heap[0];
+        positions[min] = ABSENT;
+        size--;
+
+        if (size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+
+        return min;
+    }
+
+    private void siftUp(int position) {
+        int id = heap[position];
+        long key = keys[id];
+
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+
+            if (keys[heap[parent]] <= key) {
+                break;
+            }
+
+            move(heap[parent], position);
+            position = parent;
+        }
+
+        move(id, position);
+    }
+
+    private void siftDown(int position) {
+        int id = heap[position];
+        long key = keys[id];
+
+        while (true) {
+            int child = 2 * position + 1;
+
+            if (child >= size) {
+                break;
+            }
+
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                child++;
+            }
+
+            if (key <= keys[heap[child]]) {
+                break;
+            }
+
+            move(heap[child], position);
+            position = child;
+        }
+
+        move(id, position);
+    }
+
+    private void move(int id, int position) {
+        heap[position] = id;
+        positions[id] = position;
+    }
+}
@@ -0,0 +1,156 @@
+package net.java.pathfinder.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Time-dependent Dijkstra search over a {@link TransitGraph}.
+ * <p/>
+ * The label of a location is the earliest time cargo can be there. Settling a
+ * location relaxes only the departures that leave at or after that time, so
+ * every path found is actually executable against the schedule. Departures
+ * that leave after the best known arrival at the destination, or after the
+ * deadline, can never improve the result and end the scan early.
+ * <p/>
+ * All search state lives in primitive arrays allocated once per finder, so a
+ * search allocates nothing but its result. A finder is therefore not thread
+ * safe; use one per thread or per pooled bean instance.
+ */
+public class TimeDependentPathFinder {
+
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+    private static final int[] NO_PATH = new int[0];
+    private static final int NONE = -1;
+    private final TransitGraph graph;
+    private final long[] arrival;
+    private final int[] reachedBy;
+    private final IndexedMinHeap queue;
+
+    public TimeDependentPathFinder(TransitGraph graph) {
+        this.graph = graph;
+        this.arrival = new long[graph.getLocationCount()];
+        this.reachedBy = new int[graph.getLocationCount()];
+        this.queue = new IndexedMinHeap(graph.getLocationCount());
+    }
+
+    public TransitGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Finds up to the requested number of candidate paths. The first candidate
+     * is the earliest arrival when departing at or after the given time; every
+     * following candidate is the earliest arrival when departing strictly
+     * after the first departure of the previous candidate.
+     *
+     * @param origin graph id of the origin location
+     * @param destination graph id of the destination location
+     * @param earliestDeparture earliest departure time, in milliseconds
+     * @param deadline arrival deadline, in milliseconds; paths must arrive
+     * strictly before it
+     * @param maxCandidates maximum number of candidates to return
+     * @return Candidate paths as arrays of connection indexes, ordered by
+     * departure time. May be empty.
+     */
+    public List<int[]> findPaths(int origin, int destination,
+            long earliestDeparture, long deadline, int maxCandidates) {
+        List<int[]> candidates = new ArrayList<>(maxCandidates);
+        long departure = earliestDeparture;
+
+        while (candidates.size() < maxCandidates) {
+            int[] path = findEarliestArrival(origin, destination, departure,
+                    deadline);
+
+            if (path.length == 0) {
+                break;
+            }
+
+            candidates.add(path);
+            departure = graph.getDepartureTime(path[0]) + 1;
+        }
+
+        return candidates;
+    }
+
+    /**
+     * @return The connection indexes of the earliest arriving path, or an
+     * empty array if the destination can't be reached before the deadline.
+     */
+    public int[] findEarliestArrival(int origin, int destination,
+            long earliestDeparture, long deadline) {
+        if (origin == destination) {
+            return NO_PATH;
+        }
+
+        Arrays.fill(arrival, Long.MAX_VALUE);
+        Arrays.fill(reachedBy, NONE);
+        queue.clear();
+
+        arrival[origin] = earliestDeparture;
+        queue.insertOrDecrease(origin, earliestDeparture);
+
+        while (!queue.isEmpty()) {
+            int location = queue.poll();
+
+            if (location == destination) {
+                return toPath(destination);
+            }
+
+            long bound = Math.min(arrival[destination], deadline);
+            int lastLane = graph.firstLane(location + 1);
+
+            for (int lane = graph.firstLane(location); lane < lastLane;
+                    lane++) {
+                relaxLane(lane, arrival[location], bound);
+            }
+        }
+
+        return NO_PATH;
+    }
+
+    /**
+     * Relaxes the catchable departures on a lane. A departure at or after the
+     * best known arrival at the lane's destination can't arrive any earlier,
+     * so usually only the first catchable departure is looked at.
+     */
+    private void relaxLane(int lane, long readyTime, long bound) {
+        int next = graph.getLaneDestination(lane);
+        int end = graph.firstConnection(lane + 1);
+
+        for (int connection = graph.firstDepartureAtOrAfter(lane, readyTime);
+                connection < end; connection++) {
+            long departureTime = graph.getDepartureTime(connection);
+
+            if (departureTime >= bound || departureTime >= arrival[next]) {
+                break;
+            }
+
+            long arrivalTime = graph.getArrivalTime(connection);
+
+            if (arrivalTime < arrival[next] && arrivalTime < bound) {
+                arrival[next] = arrivalTime;
+                reachedBy[next] = connection;
+                queue.insertOrDecrease(next, arrivalTime);
+            }
+        }
+    }
+
+    private int[] toPath(int destination) {
+        int length = 0;
+
+        for (int location = destination; reachedBy[location] != NONE;
+                location = graph.getDepartureLocation(reachedBy[location])) {
+            length++;
+        }
+
+        int[] path = new int[length];
+
+        for (int location = destination; reachedBy[location] != NONE;
+                location = graph.getDepartureLocation(reachedBy[location])) {
+            path[--length] = reachedBy[location];
+        }
+
+        return path;
+    }
+}
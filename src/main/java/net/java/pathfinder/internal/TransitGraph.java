@@ -0,0 +1,496 @@
+package net.java.pathfinder.internal;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable, time-dependent graph of the voyage network. Every location and
+ * every voyage is interned to a dense integer id, and every carrier movement
+ * is a timed edge, a "connection".
+ * <p/>
+ * The graph is stored in two levels of compressed sparse rows. The lanes of a
+ * location, i.e. the distinct locations it has departures to, have the indexes
+ * <code>[firstLane(l), firstLane(l + 1))</code>, and the connections of a lane,
+ * ordered by departure time, have the indexes
+ * <code>[firstConnection(lane), firstConnection(lane + 1))</code>. Grouping by
+ * lane means a search only has to look at the first catchable departures on
+ * each lane instead of every later departure from a location.
+ * <p/>
+ * Every column is a primitive view of a single direct buffer, so searching the
+ * graph creates no objects and the timetable lives outside of the Java heap.
+ * A connection takes 20 bytes, so a schedule of a million carrier movements
+ * takes a little over 20 MB.
+ */
+public class TransitGraph {
+
+    private static final int LANE_BYTES = 4 + 4;
+    private static final int CONNECTION_BYTES = 8 + 8 + 4;
+    private final Map<String, Integer> locationIds;
+    private final String[] locations;
+    private final String[] voyageNumbers;
+    private final int laneCount;
+    private final int connectionCount;
+    private final IntBuffer firstLanes;
+    private final IntBuffer laneDestinations;
+    private final IntBuffer firstConnections;
+    private final LongBuffer departureTimes;
+    private final LongBuffer arrivalTimes;
+    private final IntBuffer voyages;
+
+    /**
+     * @param locations UN/LOCODEs, indexed by location id
+     * @param voyageNumbers voyage numbers, indexed by voyage id
+     * @param laneCount number of lanes
+     * @param connectionCount number of connections
+     * @param columns buffer holding the CSR columns, as described by
+     * {@link #columnsSize(int, int, int)}
+     */
+    TransitGraph(String[] locations, String[] voyageNumbers, int laneCount,
+            int connectionCount, ByteBuffer columns) {
+        this.locations = locations;
+        this.voyageNumbers = voyageNumbers;
+        this.laneCount = laneCount;
+        this.connectionCount = connectionCount;
+        this.locationIds = new HashMap<>(locations.length * 2);
+
+        for (int i = 0; i < locations.length; i++) {
+            locationIds.put(locations[i], i);
+        }
+
+        int start = columns.position();
+        this.firstLanes = slice(columns, start, 4 * (locations.length + 1))
+                .asIntBuffer();
+        start += 4 * (locations.length + 1);
+        this.laneDestinations = slice(columns, start, 4 * laneCount)
+                .asIntBuffer();
+        start += 4 * laneCount;
+        this.firstConnections = slice(columns, start, 4 * (laneCount + 1))
+                .asIntBuffer();
+        start = columns.position() + longColumnsOffset(locations.length,
+                laneCount);
+        this.departureTimes = slice(columns, start, 8 * connectionCount)
+                .asLongBuffer();
+        start += 8 * connectionCount;
+        this.arrivalTimes = slice(columns, start, 8 * connectionCount)
+                .asLongBuffer();
+        start += 8 * connectionCount;
+        this.voyages = slice(columns, start, 4 * connectionCount).asIntBuffer();
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int start, int length) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(start + length).position(start);
+
+        return slice.slice();
+    }
+
+    /**
+     * @return Size in bytes of the CSR columns of a graph. The columns are, in
+     * order: the lane offsets of the locations (one int per location, plus
+     * one), the lane destinations (ints), the connection offsets of the lanes
+     * (one int per lane, plus one), padding to a multiple of eight bytes, the
+     * departure times and the arrival times (longs) and the voyages (ints).
+     */
+    static int columnsSize(int locationCount, int laneCount,
+            int connectionCount) {
+        return longColumnsOffset(locationCount, laneCount)
+                + CONNECTION_BYTES * connectionCount;
+    }
+
+    /**
+     * @return Offset of the departure times from the start of the columns. The
+     * long columns are aligned to eight bytes if the columns start out so.
+     */
+    private static int longColumnsOffset(int locationCount, int laneCount) {
+        int intColumnsSize = 4 * (locationCount + 1) + LANE_BYTES * laneCount
+                + 4;
+
+        return (intColumnsSize + 7) / 8 * 8;
+    }
+
+    /**
+     * @param unLocode UN/LOCODE of a location
+     * @return Graph id of the location, or -1 if it is not part of the graph.
+     */
+    public int getLocationId(String unLocode) {
+        Integer id = locationIds.get(unLocode);
+        return id == null ? -1 : id;
+    }
+
+    public String getUnLocode(int locationId) {
+        return locations[locationId];
+    }
+
+    public int getLocationCount() {
+        return locations.length;
+    }
+
+    public int getVoyageCount() {
+        return voyageNumbers.length;
+    }
+
+    public int getLaneCount() {
+        return laneCount;
+    }
+
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * @return Index of the first lane of the location. The lanes of the
+     * location end where those of the next location begin.
+     */
+    public int firstLane(int locationId) {
+        return firstLanes.get(locationId);
+    }
+
+    public int getLaneDestination(int lane) {
+        return laneDestinations.get(lane);
+    }
+
+    /**
+     * @return Index of the first connection on the lane. The connections of
+     * the lane end where those of the next lane begin.
+     */
+    public int firstConnection(int lane) {
+        return firstConnections.get(lane);
+    }
+
+    public long getDepartureTime(int connection) {
+        return departureTimes.get(connection);
+    }
+
+    public long getArrivalTime(int connection) {
+        return arrivalTimes.get(connection);
+    }
+
+    public int getVoyage(int connection) {
+        return voyages.get(connection);
+    }
+
+    public String getVoyageNumber(int connection) {
+        return voyageNumbers[voyages.get(connection)];
+    }
+
+    /**
+     * @return Location the connection departs from. Found with binary searches
+     * over the offsets; meant for assembling results, not for searching.
+     */
+    public int getDepartureLocation(int connection) {
+        return floorIndex(firstLanes, locations.length,
+                floorIndex(firstConnections, laneCount, connection));
+    }
+
+    /**
+     * @return Location the connection arrives at. Found with a binary search
+     * over the offsets; meant for assembling results, not for searching.
+     */
+    public int getArrivalLocation(int connection) {
+        return laneDestinations.get(floorIndex(firstConnections, laneCount,
+                connection));
+    }
+
+    /**
+     * @return The last index below the count whose offset is at or before the
+     * given position, i.e. the row the position belongs to.
+     */
+    private static int floorIndex(IntBuffer offsets, int count, int position) {
+        int low = 0;
+        int high = count - 1;
+
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+
+            if (offsets.get(middle) <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * @return Index of the first departure on the lane at or after the given
+     * time, or the end of the lane's connections if there is none.
+     */
+    public int firstDepartureAtOrAfter(int lane, long time) {
+        int low = firstConnections.get(lane);
+        int high = firstConnections.get(lane + 1);
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (departureTimes.get(middle) < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Builder pattern is used for incremental construction of the graph from
+     * the carrier movements of all voyages. Movements are collected in growing
+     * primitive arrays and sorted into CSR order when the graph is built.
+     */
+    public static class Builder {
+
+        private final Map<String, Integer> locationIds = new HashMap<>();
+        private final Map<String, Integer> voyageIds = new HashMap<>();
+        private String[] locations = new String[16];
+        private String[] voyageNumbers = new String[16];
+        private int[] departureLocations = new int[64];
+        private int[] arrivalLocations = new int[64];
+        private int[] voyages = new int[64];
+        private long[] departureTimes = new long[64];
+        private long[] arrivalTimes = new long[64];
+        private int connectionCount;
+        private int[] order;
+        private int laneCount;
+
+        public Builder addMovement(String voyageNumber, String fromUnLocode,
+                String toUnLocode, long departureTime, long arrivalTime) {
+            if (connectionCount == departureTimes.length) {
+                int capacity = connectionCount * 2;
+                departureLocations = Arrays.copyOf(departureLocations, capacity);
+                arrivalLocations = Arrays.copyOf(arrivalLocations, capacity);
+                voyages = Arrays.copyOf(voyages, capacity);
+                departureTimes = Arrays.copyOf(departureTimes, capacity);
+                arrivalTimes = Arrays.copyOf(arrivalTimes, capacity);
+            }
+
+            departureLocations[connectionCount] = locationIdOf(fromUnLocode);
+            arrivalLocations[connectionCount] = locationIdOf(toUnLocode);
+            voyages[connectionCount] = voyageIdOf(voyageNumber);
+            departureTimes[connectionCount] = departureTime;
+            arrivalTimes[connectionCount] = arrivalTime;
+            connectionCount++;
+            order = null;
+
+            return this;
+        }
+
+        private int locationIdOf(String unLocode) {
+            Integer id = locationIds.get(unLocode);
+
+            if (id == null) {
+                id = locationIds.size();
+                locationIds.put(unLocode, id);
+
+                if (id == locations.length) {
+                    locations = Arrays.copyOf(locations, id * 2);
+                }
+
+                locations[id] = unLocode;
+            }
+
+            return id;
+        }
+
+        private int voyageIdOf(String voyageNumber) {
+            Integer id = voyageIds.get(voyageNumber);
+
+            if (id == null) {
+                id = voyageIds.size();
+                voyageIds.put(voyageNumber, id);
+
+                if (id == voyageNumbers.length) {
+                    voyageNumbers = Arrays.copyOf(voyageNumbers, id * 2);
+                }
+
+                voyageNumbers[id] = voyageNumber;
+            }
+
+            return id;
+        }
+
+        public TransitGraph build() {
+            sort();
+            ByteBuffer columns = ByteBuffer.allocateDirect(getColumnsSize());
+            writeColumns(columns);
+            columns.flip();
+
+            return new TransitGraph(getLocations(), getVoyageNumbers(),
+                    laneCount, connectionCount, columns);
+        }
+
+        String[] getLocations() {
+            return Arrays.copyOf(locations, locationIds.size());
+        }
+
+        String[] getVoyageNumbers() {
+            return Arrays.copyOf(voyageNumbers, voyageIds.size());
+        }
+
+        int getLaneCount() {
+            sort();
+            return laneCount;
+        }
+
+        int getConnectionCount() {
+            return connectionCount;
+        }
+
+        int getColumnsSize() {
+            return columnsSize(locationIds.size(), getLaneCount(),
+                    connectionCount);
+        }
+
+        /**
+         * Orders the movements by departure location, with a counting sort,
+         * then by arrival location and departure time within each departure
+         * location, and counts the lanes.
+         */
+        private void sort() {
+            if (order != null) {
+                return;
+            }
+
+            int locationCount = locationIds.size();
+            int[] starts = new int[locationCount + 1];
+
+            for (int i = 0; i < connectionCount; i++) {
+                starts[departureLocations[i] + 1]++;
+            }
+
+            for (int location = 0; location < locationCount; location++) {
+                starts[location + 1] += starts[location];
+            }
+
+            order = new int[connectionCount];
+            int[] next = Arrays.copyOf(starts, locationCount);
+
+            for (int i = 0; i < connectionCount; i++) {
+                order[next[departureLocations[i]]++] = i;
+            }
+
+            int[] scratch = new int[connectionCount];
+
+            for (int location = 0; location < locationCount; location++) {
+                sortByLaneAndDeparture(scratch, starts[location],
+                        starts[location + 1]);
+            }
+
+            laneCount = 0;
+
+            for (int i = 0; i < connectionCount; i++) {
+                if (i == 0 || !sameLane(order[i - 1], order[i])) {
+                    laneCount++;
+                }
+            }
+        }
+
+        private boolean sameLane(int movement, int other) {
+            return departureLocations[movement] == departureLocations[other]
+                    && arrivalLocations[movement] == arrivalLocations[other];
+        }
+
+        /**
+         * Writes the CSR columns, as described by
+         * {@link TransitGraph#columnsSize(int, int, int)}, to the buffer.
+         */
+        void writeColumns(ByteBuffer columns) {
+            sort();
+            int start = columns.position();
+            int locationCount = locationIds.size();
+            int[] firstLanes = new int[locationCount + 1];
+            int[] laneDestinations = new int[laneCount];
+            int[] firstConnections = new int[laneCount + 1];
+            int lane = -1;
+
+            for (int i = 0; i < connectionCount; i++) {
+                if (i == 0 || !sameLane(order[i - 1], order[i])) {
+                    lane++;
+                    laneDestinations[lane] = arrivalLocations[order[i]];
+                    firstConnections[lane] = i;
+                    firstLanes[departureLocations[order[i]] + 1] = lane + 1;
+                }
+            }
+
+            firstConnections[laneCount] = connectionCount;
+
+            // Locations without departures start where the previous one ends.
+            for (int location = 0; location < locationCount; location++) {
+                firstLanes[location + 1] = Math.max(firstLanes[location + 1],
+                        firstLanes[location]);
+            }
+
+            for (int firstLane : firstLanes) {
+                columns.putInt(firstLane);
+            }
+
+            for (int laneDestination : laneDestinations) {
+                columns.putInt(laneDestination);
+            }
+
+            for (int firstConnection : firstConnections) {
+                columns.putInt(firstConnection);
+            }
+
+            while (columns.position() - start
+                    < longColumnsOffset(locationCount, laneCount)) {
+                columns.putInt(0);
+            }
+
+            for (int i = 0; i < connectionCount; i++) {
+                columns.putLong(departureTimes[order[i]]);
+            }
+
+            for (int i = 0; i < connectionCount; i++) {
+                columns.putLong(arrivalTimes[order[i]]);
+            }
+
+            for (int i = 0; i < connectionCount; i++) {
+                columns.putInt(voyages[order[i]]);
+            }
+        }
+
+        /**
+         * Stable merge sort of a range of movement indexes by arrival location
+         * and departure time.
+         */
+        private void sortByLaneAndDeparture(int[] scratch, int from, int to) {
+            if (to - from < 2) {
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            sortByLaneAndDeparture(scratch, from, middle);
+            sortByLaneAndDeparture(scratch, middle, to);
+
+            if (compare(order[middle - 1], order[middle]) <= 0) {
+                return;
+            }
+
+            System.arraycopy(order, from, scratch, from, to - from);
+
+            for (int i = from, left = from, right = middle; i < to; i++) {
+                if (right >= to || (left < middle
+                        && compare(scratch[left], scratch[right]) <= 0)) {
+                    order[i] = scratch[left++];
+                } else {
+                    order[i] = scratch[right++];
+                }
+            }
+        }
+
+        private int compare(int movement, int other) {
+            if (arrivalLocations[movement] != arrivalLocations[other]) {
+                return Integer.compare(arrivalLocations[movement],
+                        arrivalLocations[other]);
+            }
+
+            return Long.compare(departureTimes[movement],
+                    departureTimes[other]);
+        }
+    }
+}
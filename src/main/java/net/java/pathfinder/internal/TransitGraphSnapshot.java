@@ -0,0 +1,224 @@
+package net.java.pathfinder.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of a {@link TransitGraph}, so a node can open the timetable
+ * with a memory map instead of rebuilding it from the database. Graphs mapped
+ * from the same file share the operating system's page cache, also across
+ * JVMs on the same host.
+ * <p/>
+ * A snapshot consists of a fixed header, the UN/LOCODEs and voyage numbers as
+ * modified UTF-8 strings, padded to a multiple of eight bytes, and the CSR
+ * columns of the graph exactly as they are searched. The header is a multiple
+ * of eight bytes too, so the columns start at an eight byte boundary of the
+ * mapped file and their long columns are aligned. The header holds a magic
+ * number, the format version, the counts, the section lengths and a CRC-32 of
+ * everything after the header. All numbers are big-endian.
+ * <p/>
+ * Snapshots are written to a temporary file next to the target and then
+ * atomically moved into place, so a reader either maps the old snapshot or the
+ * new one, never a partial file.
+ */
+public final class TransitGraphSnapshot {
+
+    public static final int MAGIC = 0x43544753; // "CTGS"
+    public static final int VERSION = 2;
+    /**
+     * System property that overrides the location of the snapshot file.
+     */
+    public static final String FILE_PROPERTY = "net.java.pathfinder.snapshot";
+    private static final String DEFAULT_FILE
+            = "/tmp/cargo-tracker/transit-graph.snapshot";
+    private static final int HEADER_SIZE = 8 * 4 + 8;
+    private static final int CHECKSUM_CHUNK_SIZE = 64 * 1024;
+
+    private TransitGraphSnapshot() {
+        // Only static helpers
+    }
+
+    public static File getDefaultFile() {
+        return new File(System.getProperty(FILE_PROPERTY, DEFAULT_FILE));
+    }
+
+    /**
+     * Writes the graph collected by the builder and atomically replaces the
+     * target file with it.
+     */
+    public static void write(TransitGraph.Builder builder, File target)
+            throws IOException {
+        String[] locations = builder.getLocations();
+        String[] voyageNumbers = builder.getVoyageNumbers();
+        byte[] strings = encodeStrings(locations, voyageNumbers);
+        ByteBuffer columns = ByteBuffer.allocate(builder.getColumnsSize());
+        builder.writeColumns(columns);
+        columns.flip();
+
+        CRC32 checksum = new CRC32();
+        checksum.update(strings);
+        checksum.update(columns.array(), 0, columns.limit());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(locations.length)
+                .putInt(voyageNumbers.length)
+                .putInt(builder.getLaneCount())
+                .putInt(builder.getConnectionCount())
+                .putInt(strings.length)
+                .putInt(columns.limit())
+                .putLong(checksum.getValue());
+        header.flip();
+
+        Path targetPath = target.toPath().toAbsolutePath();
+        Files.createDirectories(targetPath.getParent());
+        Path temporary = Files.createTempFile(targetPath.getParent(),
+                targetPath.getFileName().toString(), ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temporary,
+                    StandardOpenOption.WRITE)) {
+                ByteBuffer[] sections = {header, ByteBuffer.wrap(strings),
+                    columns};
+
+                while (columns.hasRemaining()) {
+                    channel.write(sections);
+                }
+
+                channel.force(true);
+            }
+
+            Files.move(temporary, targetPath, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Maps a snapshot file read-only and wraps it as a graph. The checksum is
+     * verified before the graph is handed out.
+     *
+     * @throws IOException if the file can't be read, or is not a valid
+     * snapshot of the supported version
+     */
+    public static TransitGraph map(File file) throws IOException {
+        MappedByteBuffer mapped;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Snapshot " + file + " is truncated");
+            }
+
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+
+        if (mapped.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a transit graph snapshot");
+        }
+
+        if (mapped.getInt(4) != VERSION) {
+            throw new IOException("Snapshot " + file + " has version "
+                    + mapped.getInt(4) + ", expected " + VERSION);
+        }
+
+        int locationCount = mapped.getInt(8);
+        int voyageCount = mapped.getInt(12);
+        int laneCount = mapped.getInt(16);
+        int connectionCount = mapped.getInt(20);
+        int stringsLength = mapped.getInt(24);
+        int columnsLength = mapped.getInt(28);
+        long expectedChecksum = mapped.getLong(32);
+
+        if (columnsLength != TransitGraph.columnsSize(locationCount, laneCount,
+                connectionCount)
+                || mapped.capacity() != (long) HEADER_SIZE + stringsLength
+                + columnsLength) {
+            throw new IOException("Snapshot " + file + " is truncated");
+        }
+
+        if (checksumOf(mapped, HEADER_SIZE, mapped.capacity())
+                != expectedChecksum) {
+            throw new IOException("Snapshot " + file
+                    + " failed checksum validation");
+        }
+
+        byte[] strings = new byte[stringsLength];
+        ByteBuffer stringSection = mapped.duplicate();
+        stringSection.position(HEADER_SIZE);
+        stringSection.get(strings);
+
+        DataInputStream input = new DataInputStream(
+                new ByteArrayInputStream(strings));
+        String[] locations = readStrings(input, locationCount);
+        String[] voyageNumbers = readStrings(input, voyageCount);
+
+        ByteBuffer columns = mapped.duplicate();
+        columns.position(HEADER_SIZE + stringsLength);
+
+        return new TransitGraph(locations, voyageNumbers, laneCount,
+                connectionCount, columns);
+    }
+
+    private static byte[] encodeStrings(String[] locations,
+            String[] voyageNumbers) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        for (String location : locations) {
+            output.writeUTF(location);
+        }
+
+        for (String voyageNumber : voyageNumbers) {
+            output.writeUTF(voyageNumber);
+        }
+
+        // The columns follow at an eight byte boundary.
+        while (output.size() % 8 != 0) {
+            output.writeByte(0);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static String[] readStrings(DataInputStream input, int count)
+            throws IOException {
+        String[] strings = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            strings[i] = input.readUTF();
+        }
+
+        return strings;
+    }
+
+    private static long checksumOf(ByteBuffer buffer, int from, int to) {
+        CRC32 checksum = new CRC32();
+        byte[] chunk = new byte[CHECKSUM_CHUNK_SIZE];
+        ByteBuffer section = buffer.duplicate();
+        section.limit(to).position(from);
+
+        while (section.hasRemaining()) {
+            int length = Math.min(chunk.length, section.remaining());
+            section.get(chunk, 0, length);
+            checksum.update(chunk, 0, length);
+        }
+
+        return checksum.getValue();
+    }
+}
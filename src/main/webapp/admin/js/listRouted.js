@@ -22,7 +22,16 @@
 
     populateListRouted = function(event) {
 
-        var jsonObject = JSON.parse(event.data);
+        // Conflated updates arrive as an array of them.
+        var updates = [].concat(JSON.parse(event.data));
+
+        for (var i = 0; i < updates.length; i++) {
+            populateRow(updates[i]);
+        }
+    }
+
+    populateRow = function(jsonObject) {
+
         var table = document.getElementById("listRoutedTab");
 
         for (var count = 1, row; row = table.rows[count]; count++) {
@@ -0,0 +1,42 @@
+package net.java.cargotracker.application.projection;
+
+import static org.junit.Assert.*;
+
+import net.java.cargotracker.application.util.DateUtil;
+import net.java.cargotracker.domain.model.cargo.Cargo;
+import net.java.cargotracker.domain.model.cargo.RouteSpecification;
+import net.java.cargotracker.domain.model.cargo.RoutingStatus;
+import net.java.cargotracker.domain.model.cargo.TrackingId;
+import net.java.cargotracker.domain.model.cargo.TransportStatus;
+import net.java.cargotracker.domain.model.location.Location;
+import net.java.cargotracker.domain.model.location.SampleLocations;
+import org.junit.Test;
+
+public class CargoStatusSnapshotTest {
+
+    @Test
+    public void testTakenFromProjection() {
+        Cargo cargo = new Cargo(new TrackingId("XYZ"), new RouteSpecification(
+                SampleLocations.STOCKHOLM, SampleLocations.MELBOURNE,
+                DateUtil.toDate("2014-03-13")));
+        CargoStatusProjection projection = new CargoStatusProjection(cargo);
+
+        CargoStatusSnapshot snapshot = CargoStatusSnapshot.of(projection);
+
+        assertEquals("XYZ", snapshot.getTrackingId());
+        assertEquals(RoutingStatus.NOT_ROUTED, snapshot.getRoutingStatus());
+        assertEquals(TransportStatus.NOT_RECEIVED,
+                snapshot.getTransportStatus());
+        assertFalse(snapshot.isMisdirected());
+        assertFalse(snapshot.isUnloadedAtDestination());
+        assertEquals("SESTO", snapshot.getOriginUnLocode());
+        assertEquals("Stockholm", snapshot.getOriginName());
+        assertEquals("AUMEL", snapshot.getDestinationUnLocode());
+        assertEquals("Melbourne", snapshot.getDestinationName());
+        assertEquals(Location.UNKNOWN.getUnLocode().getIdString(),
+                snapshot.getLastKnownLocationUnLocode());
+        assertEquals(Location.UNKNOWN.getName(),
+                snapshot.getLastKnownLocationName());
+        assertEquals(projection.getCalculatedAt(), snapshot.getCalculatedAt());
+    }
+}
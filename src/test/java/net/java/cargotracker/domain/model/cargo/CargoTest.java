@@ -155,6 +155,40 @@ public class CargoTest {
 		assertTrue(cargo.getDelivery().isUnloadedAtDestination());
 	}
 
+	@Test
+	public void testDeliveryProgressFromSingleEvents() {
+		Cargo incremental = setUpCargoWithItinerary(SampleLocations.HANGZOU,
+				SampleLocations.TOKYO, SampleLocations.NEWYORK);
+		Cargo full = setUpCargoWithItinerary(SampleLocations.HANGZOU,
+				SampleLocations.TOKYO, SampleLocations.NEWYORK);
+
+		// The customs event is registered after the later unload event.
+		List<HandlingEvent> registered = Arrays.asList(
+				new HandlingEvent(incremental, new Date(10), new Date(),
+						HandlingEvent.Type.RECEIVE, SampleLocations.HANGZOU),
+				new HandlingEvent(incremental, new Date(20), new Date(),
+						HandlingEvent.Type.LOAD, SampleLocations.HANGZOU, voyage),
+				new HandlingEvent(incremental, new Date(40), new Date(),
+						HandlingEvent.Type.UNLOAD, SampleLocations.TOKYO, voyage),
+				new HandlingEvent(incremental, new Date(30), new Date(),
+						HandlingEvent.Type.CUSTOMS, SampleLocations.TOKYO));
+
+		for (HandlingEvent event : registered) {
+			events.add(event);
+			incremental.deriveDeliveryProgress(event);
+			full.deriveDeliveryProgress(new HandlingHistory(events));
+
+			assertTrue(incremental.getDelivery().sameProgressAs(
+					full.getDelivery()));
+		}
+
+		assertEquals(TransportStatus.IN_PORT, incremental.getDelivery()
+				.getTransportStatus());
+		assertEquals(SampleLocations.TOKYO, incremental.getDelivery()
+				.getLastKnownLocation());
+		assertFalse(incremental.getDelivery().isMisdirected());
+	}
+
 	// TODO: Generate test data some better way
 
 	private Cargo populateCargoReceivedStockholm() throws Exception {
@@ -48,4 +48,38 @@ public class HandlingHistoryTest {
 	public void testMostRecentlyCompletedEvent() {
 		assertEquals(event2, handlingHistory.getMostRecentlyCompletedEvent());
 	}
+
+	@Test
+	public void testEventsCompletedBetween() {
+		assertEquals(Arrays.asList(event1, event2),
+				handlingHistory.getEventsCompletedBetween(
+						DateUtil.toDate("2009-03-05"),
+						DateUtil.toDate("2009-03-11")));
+		assertEquals(Arrays.asList(event1),
+				handlingHistory.getEventsCompletedBetween(
+						DateUtil.toDate("2009-03-01"),
+						DateUtil.toDate("2009-03-10")));
+		assertTrue(handlingHistory.getEventsCompletedBetween(
+				DateUtil.toDate("2009-03-11"), DateUtil.toDate("2009-03-01"))
+				.isEmpty());
+	}
+
+	@Test
+	public void testEventsByTypeAndLocation() {
+		assertEquals(Arrays.asList(event1),
+				handlingHistory.getEventsOfType(HandlingEvent.Type.LOAD));
+		assertTrue(handlingHistory.getEventsOfType(HandlingEvent.Type.CLAIM)
+				.isEmpty());
+		assertEquals(Arrays.asList(event2),
+				handlingHistory.getEventsAt(SampleLocations.DALLAS));
+		assertTrue(handlingHistory.getEventsAt(SampleLocations.HONGKONG)
+				.isEmpty());
+	}
+
+	@Test
+	public void testEmptyHistory() {
+		assertNull(HandlingHistory.EMPTY.getMostRecentlyCompletedEvent());
+		assertTrue(HandlingHistory.EMPTY.getDistinctEventsByCompletionTime()
+				.isEmpty());
+	}
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package net.java.cargotracker.infrastructure.messaging.jms;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import net.java.cargotracker.domain.model.cargo.TrackingId;
+import net.java.cargotracker.domain.model.handling.HandlingEvent;
+import net.java.cargotracker.domain.model.location.UnLocode;
+import net.java.cargotracker.domain.model.voyage.VoyageNumber;
+import net.java.cargotracker.interfaces.handling.HandlingEventRegistrationAttempt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link HandlingEventRegistrationAttemptCodec} to Java
+ * serialization, which is what an ObjectMessage carrying the attempt uses.
+ * <p/>
+ * Run with the benchmarks profile:
+ * <pre>
+ * mvn -P benchmarks test-compile exec:exec -Dbenchmarks=HandlingEventRegistrationAttemptCodecBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HandlingEventRegistrationAttemptCodecBenchmark {
+
+    private HandlingEventRegistrationAttempt attempt;
+    private byte[] encoded;
+    private byte[] serialized;
+
+    @Setup
+    public void createAttempt() throws IOException {
+        attempt = new HandlingEventRegistrationAttempt(new Date(),
+                new Date(), new TrackingId("ABC123"),
+                new VoyageNumber("0100S"), HandlingEvent.Type.LOAD,
+                new UnLocode("CNHKG"));
+        encoded = encodeWithCodec();
+        serialized = serialize();
+    }
+
+    @Benchmark
+    public byte[] encodeWithCodec() {
+        return HandlingEventRegistrationAttemptCodec.encode(attempt);
+    }
+
+    @Benchmark
+    public HandlingEventRegistrationAttempt decodeWithCodec() {
+        return HandlingEventRegistrationAttemptCodec.decode(encoded);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(attempt);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Object deserialize() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream input = new ObjectInputStream(
+                new ByteArrayInputStream(serialized))) {
+            return input.readObject();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package net.java.cargotracker.infrastructure.messaging.jms;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Date;
+import net.java.cargotracker.domain.model.cargo.TrackingId;
+import net.java.cargotracker.domain.model.handling.HandlingEvent;
+import net.java.cargotracker.domain.model.location.UnLocode;
+import net.java.cargotracker.domain.model.voyage.VoyageNumber;
+import net.java.cargotracker.interfaces.handling.HandlingEventRegistrationAttempt;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class HandlingEventRegistrationAttemptCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        HandlingEventRegistrationAttempt attempt
+                = new HandlingEventRegistrationAttempt(new Date(1000),
+                        new Date(2000), new TrackingId("ABC123"),
+                        new VoyageNumber("0100S"), HandlingEvent.Type.LOAD,
+                        new UnLocode("CNHKG"));
+
+        byte[] bytes = HandlingEventRegistrationAttemptCodec.encode(attempt);
+        assertEquals(38, bytes.length);
+        assertSameAttempt(attempt,
+                HandlingEventRegistrationAttemptCodec.decode(bytes));
+    }
+
+    @Test
+    public void testRoundTripWithoutVoyage() {
+        HandlingEventRegistrationAttempt attempt
+                = new HandlingEventRegistrationAttempt(new Date(),
+                        new Date(), new TrackingId("ABC123"), null,
+                        HandlingEvent.Type.CLAIM, new UnLocode("seSto"));
+
+        assertSameAttempt(attempt, HandlingEventRegistrationAttemptCodec.decode(
+                HandlingEventRegistrationAttemptCodec.encode(attempt)));
+    }
+
+    @Test
+    public void testRoundTripWithUnpackableIds() {
+        HandlingEventRegistrationAttempt attempt
+                = new HandlingEventRegistrationAttempt(new Date(),
+                        new Date(), new TrackingId("tracking-id-ÅÄÖ"),
+                        new VoyageNumber("V100200300400"),
+                        HandlingEvent.Type.UNLOAD, new UnLocode("ZZ999"));
+
+        assertSameAttempt(attempt, HandlingEventRegistrationAttemptCodec.decode(
+                HandlingEventRegistrationAttemptCodec.encode(attempt)));
+    }
+
+    @Test
+    public void testPackCode() {
+        for (String value : new String[]{"0", "zzzzzzzzzz", "A1b2C3"}) {
+            assertEquals(value, HandlingEventRegistrationAttemptCodec.unpackCode(
+                    HandlingEventRegistrationAttemptCodec.packCode(value)));
+        }
+
+        assertEquals(-1, HandlingEventRegistrationAttemptCodec.packCode(""));
+        assertEquals(-1, HandlingEventRegistrationAttemptCodec.packCode("A-1"));
+        assertEquals(-1,
+                HandlingEventRegistrationAttemptCodec.packCode("ABCDEFGHIJK"));
+    }
+
+    @Test
+    public void testPackUnLocode() {
+        for (String value : new String[]{"AA222", "zzzzz", "USNYC", "jpTok"}) {
+            assertEquals(value,
+                    HandlingEventRegistrationAttemptCodec.unpackUnLocode(
+                            HandlingEventRegistrationAttemptCodec.packUnLocode(
+                                    value)));
+        }
+
+        assertTrue(HandlingEventRegistrationAttemptCodec.packUnLocode("zzzzz")
+                > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeRejectsUnknownVersion() {
+        byte[] bytes = HandlingEventRegistrationAttemptCodec.encode(
+                new HandlingEventRegistrationAttempt(new Date(), new Date(),
+                        new TrackingId("ABC123"), null,
+                        HandlingEvent.Type.RECEIVE, new UnLocode("USNYC")));
+        bytes[0] = 2;
+
+        HandlingEventRegistrationAttemptCodec.decode(bytes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeRejectsTruncatedAttempt() {
+        HandlingEventRegistrationAttemptCodec.decode(
+                new byte[]{HandlingEventRegistrationAttemptCodec.FORMAT_VERSION,
+                    0, 0});
+    }
+
+    @Test
+    public void testSmallerThanSerialization() throws IOException {
+        HandlingEventRegistrationAttempt attempt
+                = new HandlingEventRegistrationAttempt(new Date(), new Date(),
+                        new TrackingId("ABC123"), new VoyageNumber("0100S"),
+                        HandlingEvent.Type.LOAD, new UnLocode("CNHKG"));
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(attempt);
+        }
+
+        assertTrue(HandlingEventRegistrationAttemptCodec.encode(attempt).length
+                * 10 < serialized.size());
+    }
+
+    private static void assertSameAttempt(
+            HandlingEventRegistrationAttempt expected,
+            HandlingEventRegistrationAttempt actual) {
+        assertEquals(expected.getRegistrationTime(),
+                actual.getRegistrationTime());
+        assertEquals(expected.getCompletionTime(), actual.getCompletionTime());
+        assertEquals(expected.getTrackingId(), actual.getTrackingId());
+        assertEquals(expected.getVoyageNumber(), actual.getVoyageNumber());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getUnLocode(), actual.getUnLocode());
+    }
+}
@@ -0,0 +1,74 @@
+package net.java.cargotracker.infrastructure.persistence.jpa;
+
+import static org.junit.Assert.*;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.enterprise.event.Event;
+import javax.enterprise.util.TypeLiteral;
+import net.java.cargotracker.domain.model.location.Location;
+import net.java.cargotracker.domain.model.location.SampleLocations;
+import net.java.cargotracker.domain.model.voyage.SampleVoyages;
+import net.java.cargotracker.domain.model.voyage.Voyage;
+import org.junit.Test;
+
+public class ReferenceDataChangesTest {
+
+    private final RecordingEvent<Voyage> voyagesChanged = new RecordingEvent<>();
+    private final RecordingEvent<Location> locationsChanged
+            = new RecordingEvent<>();
+    private final ReferenceDataChanges changes = new ReferenceDataChanges(
+            voyagesChanged, locationsChanged);
+
+    @Test
+    public void testVoyagesAreAnnouncedOncePerTransaction() {
+        changes.voyageStored(SampleVoyages.HONGKONG_TO_NEW_YORK);
+        changes.voyageStored(SampleVoyages.NEW_YORK_TO_DALLAS);
+        changes.voyageStored(SampleVoyages.DALLAS_TO_HELSINKI);
+
+        assertEquals(Arrays.asList(SampleVoyages.HONGKONG_TO_NEW_YORK),
+                voyagesChanged.fired);
+        assertTrue(locationsChanged.fired.isEmpty());
+    }
+
+    @Test
+    public void testLocationsAreAnnouncedOncePerTransaction() {
+        changes.locationStored(SampleLocations.HONGKONG);
+        changes.voyageStored(SampleVoyages.HONGKONG_TO_NEW_YORK);
+        changes.locationStored(SampleLocations.NEWYORK);
+
+        assertEquals(Arrays.asList(SampleLocations.HONGKONG),
+                locationsChanged.fired);
+        assertEquals(Arrays.asList(SampleVoyages.HONGKONG_TO_NEW_YORK),
+                voyagesChanged.fired);
+    }
+
+    private static class RecordingEvent<T> implements Event<T> {
+
+        private final List<T> fired = new ArrayList<>();
+
+        @Override
+        public void fire(T event) {
+            fired.add(event);
+        }
+
+        @Override
+        public Event<T> select(Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U extends T> Event<U> select(Class<U> subtype,
+                Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U extends T> Event<U> select(TypeLiteral<U> subtype,
+                Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
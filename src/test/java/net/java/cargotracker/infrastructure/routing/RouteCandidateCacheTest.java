@@ -0,0 +1,54 @@
+package net.java.cargotracker.infrastructure.routing;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.java.cargotracker.application.util.DateUtil;
+import net.java.cargotracker.domain.model.cargo.Itinerary;
+import net.java.cargotracker.domain.model.cargo.Leg;
+import net.java.cargotracker.domain.model.location.SampleLocations;
+import net.java.cargotracker.domain.model.voyage.SampleVoyages;
+import org.junit.Test;
+
+public class RouteCandidateCacheTest {
+
+    private final RouteCandidateCache cache = new RouteCandidateCache();
+    private final List<Itinerary> candidates = Collections.singletonList(
+            new Itinerary(Arrays.asList(new Leg(
+                                    SampleVoyages.NEW_YORK_TO_DALLAS,
+                                    SampleLocations.NEWYORK,
+                                    SampleLocations.DALLAS,
+                                    DateUtil.toDate("2013-10-24"),
+                                    DateUtil.toDate("2013-10-25")))));
+
+    @Test
+    public void testSpecificationsWithinADayShareCandidates() {
+        String key = RouteCandidateCache.keyOf("USNYC", "USDAL",
+                DateUtil.toDate("2014-03-27", "08:00").getTime());
+        cache.put(key, candidates);
+
+        assertEquals(key, RouteCandidateCache.keyOf("USNYC", "USDAL",
+                DateUtil.toDate("2014-03-27", "17:00").getTime()));
+        assertSame(candidates, cache.get(key));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testVoyageChangeInvalidatesAllLanes() {
+        String key = RouteCandidateCache.keyOf("USNYC", "USDAL",
+                DateUtil.toDate("2014-03-27").getTime());
+        String otherKey = RouteCandidateCache.keyOf("CNHKG", "FIHEL",
+                DateUtil.toDate("2014-03-27").getTime());
+        cache.put(key, candidates);
+        cache.put(otherKey, candidates);
+
+        cache.onVoyagesChanged(SampleVoyages.HELSINKI_TO_HONGKONG);
+
+        assertNull(cache.get(key));
+        assertNull(cache.get(otherKey));
+        assertEquals(0, cache.getSize());
+        assertEquals(2, cache.getEvictionCount());
+    }
+}
@@ -1,11 +1,13 @@
 package net.java.cargotracker.interfaces.booking.facade.internal.assembler;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
 import java.util.Date;
 
+import net.java.cargotracker.application.projection.CargoStatusProjection;
 import net.java.cargotracker.domain.model.cargo.Cargo;
 import net.java.cargotracker.domain.model.cargo.Itinerary;
 import net.java.cargotracker.domain.model.cargo.Leg;
@@ -68,4 +70,34 @@ public class CargoRouteDtoAssemblerTest {
 		assertEquals("Melbourne", dto.getFinalDestination());
 		assertTrue(dto.getLegs().isEmpty());
 	}
+
+	@Test
+	public void testToDtoFromStatusProjection() {
+		CargoRouteDtoAssembler assembler = new CargoRouteDtoAssembler();
+
+		Cargo cargo = new Cargo(new TrackingId("XYZ"), new RouteSpecification(
+				SampleLocations.STOCKHOLM, SampleLocations.MELBOURNE,
+				new Date()));
+		CargoRoute expected = assembler.toDto(cargo);
+		CargoRoute dto = assembler.toDto(new CargoStatusProjection(cargo));
+
+		assertEquals(expected.getTrackingId(), dto.getTrackingId());
+		assertEquals(expected.getOrigin(), dto.getOrigin());
+		assertEquals(expected.getFinalDestination(),
+				dto.getFinalDestination());
+		assertEquals(expected.getArrivalDeadline(), dto.getArrivalDeadline());
+		assertEquals(expected.getLastKnownLocation(),
+				dto.getLastKnownLocation());
+		assertEquals(expected.getTransportStatus(), dto.getTransportStatus());
+		assertFalse(dto.isRouted());
+		assertFalse(dto.isClaimed());
+
+		cargo.assignToRoute(new Itinerary(Arrays.asList(new Leg(
+				SampleVoyages.CM001, SampleLocations.STOCKHOLM,
+				SampleLocations.MELBOURNE, new Date(), new Date()))));
+		dto = assembler.toDto(new CargoStatusProjection(cargo));
+
+		assertTrue(dto.isRouted());
+		assertTrue(dto.getLegs().isEmpty());
+	}
 }
@@ -0,0 +1,52 @@
+package net.java.cargotracker.interfaces.booking.socket;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import net.java.cargotracker.domain.model.cargo.TransportStatus;
+
+import org.junit.Test;
+
+public class CargoSubscriptionTest {
+
+    @Test
+    public void testAllMatchesAnyCargo() {
+        assertTrue(CargoSubscription.ALL.matches("ABC123", "CNHKG", "USNYC",
+                TransportStatus.NOT_RECEIVED));
+    }
+
+    @Test
+    public void testMatchesEveryCriterionGiven() {
+        CargoSubscription subscription = new CargoSubscription(
+                Collections.<String>emptySet(),
+                new HashSet<>(Arrays.asList("CNHKG", "JNTKO")),
+                Collections.<String>emptySet(),
+                new HashSet<>(Arrays.asList(TransportStatus.ONBOARD_CARRIER)));
+
+        assertTrue(subscription.matches("ABC123", "CNHKG", "USNYC",
+                TransportStatus.ONBOARD_CARRIER));
+        assertTrue(subscription.matches("DEF456", "JNTKO", "SESTO",
+                TransportStatus.ONBOARD_CARRIER));
+        assertFalse(subscription.matches("ABC123", "USNYC", "CNHKG",
+                TransportStatus.ONBOARD_CARRIER));
+        assertFalse(subscription.matches("ABC123", "CNHKG", "USNYC",
+                TransportStatus.IN_PORT));
+    }
+
+    @Test
+    public void testMatchesTrackingIds() {
+        CargoSubscription subscription = new CargoSubscription(
+                new HashSet<>(Arrays.asList("ABC123")),
+                Collections.<String>emptySet(), Collections.<String>emptySet(),
+                Collections.<TransportStatus>emptySet());
+
+        assertTrue(subscription.matches("ABC123", "CNHKG", "USNYC",
+                TransportStatus.IN_PORT));
+        assertFalse(subscription.matches("DEF456", "CNHKG", "USNYC",
+                TransportStatus.IN_PORT));
+    }
+}
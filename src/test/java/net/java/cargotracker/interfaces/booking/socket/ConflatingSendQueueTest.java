@@ -0,0 +1,76 @@
+package net.java.cargotracker.interfaces.booking.socket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import net.java.cargotracker.interfaces.booking.socket.ConflatingSendQueue.Offer;
+
+import org.junit.Test;
+
+public class ConflatingSendQueueTest {
+
+    @Test
+    public void testSendsOneFrameAtATime() {
+        ConflatingSendQueue queue = new ConflatingSendQueue(10, false);
+
+        assertEquals(Offer.SEND, queue.offer("ABC", "1"));
+        assertEquals(Offer.QUEUED, queue.offer("DEF", "2"));
+        assertEquals(1, queue.size());
+
+        assertEquals("2", queue.next());
+        assertNull(queue.next());
+        assertEquals(Offer.SEND, queue.offer("ABC", "3"));
+    }
+
+    @Test
+    public void testConflatesFramesForTheSameKey() {
+        ConflatingSendQueue queue = new ConflatingSendQueue(10, false);
+
+        queue.offer("ABC", "1");
+        assertEquals(Offer.QUEUED, queue.offer("DEF", "2"));
+        assertEquals(Offer.QUEUED, queue.offer("GHI", "3"));
+        assertEquals(Offer.CONFLATED, queue.offer("DEF", "4"));
+        assertEquals(2, queue.size());
+
+        assertEquals("4", queue.next());
+        assertEquals("3", queue.next());
+        assertNull(queue.next());
+    }
+
+    @Test
+    public void testDropsOldestFrameWhenFull() {
+        ConflatingSendQueue queue = new ConflatingSendQueue(2, false);
+
+        queue.offer("A", "1");
+        queue.offer("B", "2");
+        queue.offer("C", "3");
+        assertEquals(Offer.DROPPED, queue.offer("D", "4"));
+        assertEquals(2, queue.size());
+
+        assertEquals("3", queue.next());
+        assertEquals("4", queue.next());
+        assertNull(queue.next());
+    }
+
+    @Test
+    public void testBatchesFramesUntilDrained() {
+        ConflatingSendQueue queue = new ConflatingSendQueue(10, true);
+
+        assertTrue(queue.drain().isEmpty());
+        assertEquals(Offer.QUEUED, queue.offer("ABC", "1"));
+        assertEquals(Offer.QUEUED, queue.offer("DEF", "2"));
+        assertEquals(Offer.CONFLATED, queue.offer("ABC", "3"));
+
+        assertEquals(Arrays.asList("3", "2"), queue.drain());
+        assertEquals(0, queue.size());
+
+        // One batch in flight at a time.
+        queue.offer("GHI", "4");
+        assertTrue(queue.drain().isEmpty());
+        assertNull(queue.next());
+        assertEquals(Arrays.asList("4"), queue.drain());
+    }
+}
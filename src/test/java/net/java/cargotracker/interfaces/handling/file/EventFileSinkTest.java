@@ -0,0 +1,78 @@
+package net.java.cargotracker.interfaces.handling.file;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventFileSinkTest {
+
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("archive", ".csv");
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void testFlushedLinesAreWritten() throws IOException {
+        EventFileSink sink = new EventFileSink(file, false);
+
+        try {
+            sink.writeLine("a");
+            sink.writeLine("b");
+            sink.flush();
+
+            assertEquals(Arrays.asList("a", "b"),
+                    read(new FileInputStream(file)));
+        } finally {
+            sink.close();
+        }
+    }
+
+    @Test
+    public void testCompressedFileCanBeAppendedTo() throws IOException {
+        try (EventFileSink sink = new EventFileSink(file, true)) {
+            sink.writeLine("a");
+        }
+
+        try (EventFileSink sink = new EventFileSink(file, true)) {
+            sink.writeLine("b");
+        }
+
+        assertEquals(Arrays.asList("a", "b"),
+                read(new GZIPInputStream(new FileInputStream(file))));
+    }
+
+    private static List<String> read(InputStream input) throws IOException {
+        List<String> lines = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                input, StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null;
+                    line = reader.readLine()) {
+                lines.add(line);
+            }
+        }
+
+        return lines;
+    }
+}
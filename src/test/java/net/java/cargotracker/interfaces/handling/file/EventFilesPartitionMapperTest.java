@@ -0,0 +1,71 @@
+package net.java.cargotracker.interfaces.handling.file;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventFilesPartitionMapperTest {
+
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = File.createTempFile("uploads", "");
+        directory.delete();
+        directory.mkdir();
+    }
+
+    @After
+    public void deleteDirectory() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+
+        directory.delete();
+    }
+
+    @Test
+    public void testAssignsLargestFilesFirstToSmallestPartition()
+            throws IOException {
+        File a = file("a.csv", 100);
+        File b = file("b.csv", 60);
+        File c = file("c.csv", 50);
+        File d = file("d.csv", 30);
+
+        String[] partitions = EventFilesPartitionMapper.assign(
+                new File[]{d, c, b, a}, 2);
+
+        assertEquals(2, partitions.length);
+        assertEquals(a.getPath() + File.pathSeparator + d.getPath(),
+                partitions[0]);
+        assertEquals(b.getPath() + File.pathSeparator + c.getPath(),
+                partitions[1]);
+    }
+
+    @Test
+    public void testLeavesSurplusPartitionsEmpty() throws IOException {
+        File a = file("a.csv", 10);
+
+        String[] partitions = EventFilesPartitionMapper.assign(
+                new File[]{a}, 2);
+
+        assertEquals(a.getPath(), partitions[0]);
+        assertEquals("", partitions[1]);
+    }
+
+    private File file(String name, int length) throws IOException {
+        File file = new File(directory, name);
+
+        try (RandomAccessFile content = new RandomAccessFile(file, "rw")) {
+            content.setLength(length);
+        }
+
+        return file;
+    }
+}
@@ -0,0 +1,240 @@
+package net.java.cargotracker.interfaces.handling.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import javax.batch.runtime.BatchStatus;
+import javax.batch.runtime.context.JobContext;
+import net.java.cargotracker.application.ApplicationEvents;
+import net.java.cargotracker.application.HandlingEventService;
+import net.java.cargotracker.application.projection.CargoStatusSnapshot;
+import net.java.cargotracker.domain.model.cargo.TrackingId;
+import net.java.cargotracker.domain.model.handling.CannotCreateHandlingEventException;
+import net.java.cargotracker.domain.model.handling.HandlingEvent;
+import net.java.cargotracker.domain.model.handling.UnknownCargoException;
+import net.java.cargotracker.domain.model.location.UnLocode;
+import net.java.cargotracker.domain.model.voyage.VoyageNumber;
+import net.java.cargotracker.interfaces.handling.HandlingEventRegistrationAttempt;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventItemWriterTest {
+
+    private static final long INSTANCE_ID = 7;
+    private File directory;
+    private final Properties properties = new Properties();
+    private final EventFileSinks sinks = new EventFileSinks();
+    private final RecordingApplicationEvents applicationEvents
+            = new RecordingApplicationEvents();
+    private final RecordingHandlingEventService handlingEventService
+            = new RecordingHandlingEventService();
+    private final HandlingEventRegistrationAttempt known
+            = attempt("ABC123");
+    private final HandlingEventRegistrationAttempt unknown
+            = attempt("XYZ999");
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = File.createTempFile("job", "");
+        directory.delete();
+        directory.mkdir();
+        properties.setProperty("archive_directory",
+                new File(directory, "archive").getPath());
+        properties.setProperty("failed_directory",
+                new File(directory, "failed").getPath());
+    }
+
+    @After
+    public void deleteDirectory() {
+        sinks.close(INSTANCE_ID);
+        delete(directory);
+    }
+
+    @Test
+    public void testQueuesAttemptsByDefault() throws Exception {
+        write(known, unknown);
+
+        assertEquals(Arrays.asList(known, unknown),
+                applicationEvents.received);
+        assertTrue(handlingEventService.registered.isEmpty());
+        assertEquals(2, archived().size());
+        assertFalse(rejectedFile().exists());
+    }
+
+    @Test
+    public void testRegistersAttemptsDirectly() throws Exception {
+        properties.setProperty("ingestion_mode", "direct");
+        handlingEventService.failures.put(unknown,
+                new UnknownCargoException(unknown.getTrackingId()));
+
+        write(known, unknown);
+
+        assertTrue(applicationEvents.received.isEmpty());
+        assertEquals(Arrays.asList(known, unknown),
+                handlingEventService.registered);
+        assertEquals(2, archived().size());
+
+        List<String> rejected = Files.readAllLines(rejectedFile().toPath(),
+                StandardCharsets.UTF_8);
+        assertEquals(1, rejected.size());
+        assertTrue(rejected.get(0).contains(",XYZ999,"));
+        assertTrue(rejected.get(0).endsWith(
+                ",No cargo with tracking id XYZ999 exists in the system"));
+    }
+
+    private void write(HandlingEventRegistrationAttempt... attempts)
+            throws Exception {
+        EventItemWriter writer = new EventItemWriter(new StubJobContext(),
+                applicationEvents, handlingEventService, sinks, "0");
+        writer.open(null);
+        writer.writeItems(new ArrayList<Object>(Arrays.asList(attempts)));
+        writer.checkpointInfo();
+    }
+
+    private List<String> archived() throws IOException {
+        return Files.readAllLines(new File(directory,
+                "archive/archive_EventFilesProcessorJob_7_0.csv").toPath(),
+                StandardCharsets.UTF_8);
+    }
+
+    private File rejectedFile() {
+        return new File(directory,
+                "failed/rejected_EventFilesProcessorJob_7_0.csv");
+    }
+
+    private static HandlingEventRegistrationAttempt attempt(
+            String trackingId) {
+        return new HandlingEventRegistrationAttempt(new Date(1000),
+                new Date(2000), new TrackingId(trackingId),
+                new VoyageNumber("0100S"), HandlingEvent.Type.LOAD,
+                new UnLocode("CNHKG"));
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+
+        file.delete();
+    }
+
+    private class StubJobContext implements JobContext {
+
+        @Override
+        public String getJobName() {
+            return "EventFilesProcessorJob";
+        }
+
+        @Override
+        public Object getTransientUserData() {
+            return null;
+        }
+
+        @Override
+        public void setTransientUserData(Object data) {
+        }
+
+        @Override
+        public long getInstanceId() {
+            return INSTANCE_ID;
+        }
+
+        @Override
+        public long getExecutionId() {
+            return 1;
+        }
+
+        @Override
+        public Properties getProperties() {
+            return properties;
+        }
+
+        @Override
+        public BatchStatus getBatchStatus() {
+            return BatchStatus.STARTED;
+        }
+
+        @Override
+        public String getExitStatus() {
+            return null;
+        }
+
+        @Override
+        public void setExitStatus(String status) {
+        }
+    }
+
+    private static class RecordingApplicationEvents
+            implements ApplicationEvents {
+
+        private final List<HandlingEventRegistrationAttempt> received
+                = new ArrayList<>();
+
+        @Override
+        public void cargoWasHandled(HandlingEvent event) {
+        }
+
+        @Override
+        public void cargosWereHandled(List<HandlingEvent> events) {
+        }
+
+        @Override
+        public void cargoWasMisdirected(CargoStatusSnapshot cargo) {
+        }
+
+        @Override
+        public void cargoHasArrived(CargoStatusSnapshot cargo) {
+        }
+
+        @Override
+        public void receivedHandlingEventRegistrationAttempt(
+                HandlingEventRegistrationAttempt attempt) {
+            received.add(attempt);
+        }
+    }
+
+    private static class RecordingHandlingEventService
+            implements HandlingEventService {
+
+        private final List<HandlingEventRegistrationAttempt> registered
+                = new ArrayList<>();
+        private final Map<HandlingEventRegistrationAttempt, CannotCreateHandlingEventException> failures
+                = new HashMap<>();
+
+        @Override
+        public void registerHandlingEvent(Date completionTime,
+                TrackingId trackingId, VoyageNumber voyageNumber,
+                UnLocode unLocode, HandlingEvent.Type type) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<HandlingEventRegistrationAttempt, CannotCreateHandlingEventException> registerHandlingEvents(
+                List<HandlingEventRegistrationAttempt> attempts) {
+            registered.addAll(attempts);
+
+            return failures.isEmpty()
+                    ? Collections.<HandlingEventRegistrationAttempt, CannotCreateHandlingEventException>emptyMap()
+                    : failures;
+        }
+    }
+}
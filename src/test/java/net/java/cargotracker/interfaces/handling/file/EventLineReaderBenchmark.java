@@ -0,0 +1,121 @@
+package net.java.cargotracker.interfaces.handling.file;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import net.java.cargotracker.domain.model.cargo.TrackingId;
+import net.java.cargotracker.domain.model.handling.HandlingEvent;
+import net.java.cargotracker.domain.model.location.UnLocode;
+import net.java.cargotracker.domain.model.voyage.VoyageNumber;
+import net.java.cargotracker.interfaces.handling.HandlingEventRegistrationAttempt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares parsing an event file with {@link EventLineReader} to the way the
+ * reader used to do it, with RandomAccessFile.readLine, String.split and a
+ * SimpleDateFormat per line. Both parse the same generated file, and the score
+ * is whole files per second.
+ * <p/>
+ * Run with the benchmarks profile:
+ * <pre>
+ * mvn -P benchmarks test-compile exec:exec -Dbenchmarks=EventLineReaderBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EventLineReaderBenchmark {
+
+    private static final String[] UN_LOCODES = {"CNHKG", "USNYC", "USDAL",
+        "SESTO", "FIHEL", "DEHAM", "JNTKO", "NLRTM", "CNSHA", "AUMEL"};
+    private static final String[] VOYAGE_NUMBERS = {"0100S", "0200T",
+        "0300A", "0301S", "0400S", ""};
+    private static final HandlingEvent.Type[] TYPES = HandlingEvent.Type
+            .values();
+
+    @Param("100000")
+    private int lines;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void writeEvents() throws IOException {
+        file = File.createTempFile("events", ".csv");
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            for (int i = 0; i < lines; i++) {
+                writer.write(String.format("2014-%02d-%02d %02d:%02d,%s,%s,%s,%s\n",
+                        1 + i % 12, 1 + i % 28, i % 24, i % 60,
+                        "TRK" + (i % 5000),
+                        VOYAGE_NUMBERS[i % VOYAGE_NUMBERS.length],
+                        UN_LOCODES[i % UN_LOCODES.length],
+                        TYPES[i % TYPES.length]));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteEvents() {
+        file.delete();
+    }
+
+    @Benchmark
+    public void readWithEventLineReader(Blackhole blackhole)
+            throws IOException {
+        try (EventLineReader reader = new EventLineReader(file, 0)) {
+            while (reader.nextLine()) {
+                blackhole.consume(reader.parseLine());
+            }
+        }
+    }
+
+    @Benchmark
+    public void readWithSplit(Blackhole blackhole) throws IOException,
+            ParseException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            for (String line = input.readLine(); line != null;
+                    line = input.readLine()) {
+                blackhole.consume(parseWithSplit(line));
+            }
+        }
+    }
+
+    private static HandlingEventRegistrationAttempt parseWithSplit(
+            String line) throws ParseException {
+        String[] result = line.split(",");
+        Date completionTime = new SimpleDateFormat("yyyy-MM-dd HH:mm")
+                .parse(result[0]);
+        VoyageNumber voyageNumber = result[2].isEmpty() ? null
+                : new VoyageNumber(result[2]);
+
+        return new HandlingEventRegistrationAttempt(new Date(), completionTime,
+                new TrackingId(result[1]), voyageNumber,
+                HandlingEvent.Type.valueOf(result[4]),
+                new UnLocode(result[3]));
+    }
+}
@@ -0,0 +1,137 @@
+package net.java.cargotracker.interfaces.handling.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+
+import net.java.cargotracker.domain.model.handling.HandlingEvent;
+import net.java.cargotracker.interfaces.handling.HandlingEventRegistrationAttempt;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class EventLineReaderTest {
+
+    private File file;
+
+    @After
+    public void deleteFile() {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testParsesLines() throws Exception {
+        write("2013-01-01 10:15,ABC123,0100S,CNHKG,LOAD\n"
+                + "2013-01-02 07:05,ABC123,,cnhkg,RECEIVE\n");
+
+        try (EventLineReader reader = new EventLineReader(file, 0)) {
+            assertTrue(reader.nextLine());
+            HandlingEventRegistrationAttempt attempt = reader.parseLine();
+
+            assertEquals(new SimpleDateFormat("yyyy-MM-dd HH:mm")
+                    .parse("2013-01-01 10:15"), attempt.getCompletionTime());
+            assertEquals("ABC123", attempt.getTrackingId().getIdString());
+            assertEquals("0100S", attempt.getVoyageNumber().getIdString());
+            assertEquals("CNHKG", attempt.getUnLocode().getIdString());
+            assertEquals(HandlingEvent.Type.LOAD, attempt.getType());
+
+            assertTrue(reader.nextLine());
+            attempt = reader.parseLine();
+
+            assertNull(attempt.getVoyageNumber());
+            assertEquals("CNHKG", attempt.getUnLocode().getIdString());
+            assertEquals(HandlingEvent.Type.RECEIVE, attempt.getType());
+
+            assertFalse(reader.nextLine());
+        }
+    }
+
+    @Test
+    public void testResumesFromPosition() throws Exception {
+        write("2013-01-01 10:15,ABC123,0100S,CNHKG,LOAD\r\n"
+                + "2013-01-02 07:05,DEF456,,SESTO,RECEIVE\r"
+                + "2013-01-03 08:00,GHI789,,USNYC,CLAIM");
+        long position;
+
+        try (EventLineReader reader = new EventLineReader(file, 0)) {
+            assertTrue(reader.nextLine());
+            position = reader.getPosition();
+        }
+
+        try (EventLineReader reader = new EventLineReader(file, position)) {
+            assertTrue(reader.nextLine());
+            assertEquals("DEF456",
+                    reader.parseLine().getTrackingId().getIdString());
+            assertTrue(reader.nextLine());
+            assertEquals("GHI789",
+                    reader.parseLine().getTrackingId().getIdString());
+            assertEquals(file.length(), reader.getPosition());
+            assertFalse(reader.nextLine());
+        }
+    }
+
+    @Test
+    public void testReadsLinesLongerThanTheBuffer() throws Exception {
+        StringBuilder trackingId = new StringBuilder();
+
+        for (int i = 0; i < 100000; i++) {
+            trackingId.append('X');
+        }
+
+        write("2013-01-01 10:15," + trackingId + ",,CNHKG,LOAD\n"
+                + "2013-01-02 07:05,DEF456,,SESTO,RECEIVE\n");
+
+        try (EventLineReader reader = new EventLineReader(file, 0)) {
+            assertTrue(reader.nextLine());
+            assertEquals(trackingId.toString(),
+                    reader.parseLine().getTrackingId().getIdString());
+            assertTrue(reader.nextLine());
+            assertEquals("DEF456",
+                    reader.parseLine().getTrackingId().getIdString());
+        }
+    }
+
+    @Test
+    public void testRejectsInvalidLines() throws Exception {
+        write("2013-01-01 10:15,ABC123,0100S,CNHKG\n"
+                + "2013-01-01,ABC123,0100S,CNHKG,LOAD\n"
+                + "2013-01-01 10:15,ABC123,0100S,CNHK,LOAD\n"
+                + "2013-01-01 10:15,ABC123,0100S,CNHKG,DROP\n"
+                + "2013-01-01 10:15,ABC123,0100S,CNHKG,LOAD\n");
+
+        try (EventLineReader reader = new EventLineReader(file, 0)) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(reader.nextLine());
+
+                try {
+                    reader.parseLine();
+                    fail("Line " + i + " should have been rejected");
+                } catch (EventLineParseException e) {
+                    assertTrue(e.getLine().startsWith("2013-01-01"));
+                }
+            }
+
+            assertTrue(reader.nextLine());
+            assertEquals(HandlingEvent.Type.LOAD, reader.parseLine().getType());
+        }
+    }
+
+    private void write(String content) throws IOException {
+        file = File.createTempFile("events", ".csv");
+
+        try (OutputStream output = new FileOutputStream(file)) {
+            output.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package net.java.cargotracker.interfaces.handling.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UploadDirectoryScannerTest {
+
+    private static final long NOW = 1000000000000L;
+    private static final long SETTLE_TIME = 2000;
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = File.createTempFile("uploads", "");
+        directory.delete();
+        directory.mkdir();
+    }
+
+    @After
+    public void deleteDirectory() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+
+        directory.delete();
+    }
+
+    @Test
+    public void testNothingIsCompleteWithoutFiles() {
+        File[] files = new File[0];
+        long completeAt = UploadDirectoryScanner.completeAt(files,
+                Collections.<String, Long>emptyMap(), NOW, SETTLE_TIME);
+
+        assertEquals(0, UploadDirectoryScanner.countComplete(files,
+                completeAt));
+    }
+
+    @Test
+    public void testFilesModifiedWithinTheSettleTimeAreNotComplete()
+            throws IOException {
+        File settled = file("settled.csv", 100, NOW - SETTLE_TIME);
+        File recent = file("recent.csv", 100, NOW - SETTLE_TIME + 1000);
+        File[] files = {settled, recent};
+
+        long completeAt = UploadDirectoryScanner.completeAt(files,
+                Collections.<String, Long>emptyMap(), NOW, SETTLE_TIME);
+
+        assertEquals(NOW - SETTLE_TIME, completeAt);
+        assertEquals(1, UploadDirectoryScanner.countComplete(files,
+                completeAt));
+    }
+
+    @Test
+    public void testGrowingFilesAreNotComplete() throws IOException {
+        File settled = file("settled.csv", 100, NOW - 60000);
+        // Its modification time lags behind.
+        File growing = file("growing.csv", 200, NOW - 30000);
+        File[] files = {settled, growing};
+        Map<String, Long> previousSizes = new HashMap<>();
+        previousSizes.put("settled.csv", 100L);
+        previousSizes.put("growing.csv", 100L);
+
+        long completeAt = UploadDirectoryScanner.completeAt(files,
+                previousSizes, NOW, SETTLE_TIME);
+
+        assertTrue(completeAt >= settled.lastModified());
+        assertTrue(completeAt < growing.lastModified());
+        assertEquals(1, UploadDirectoryScanner.countComplete(files,
+                completeAt));
+
+        // Complete once the size holds.
+        previousSizes.put("growing.csv", 200L);
+        completeAt = UploadDirectoryScanner.completeAt(files, previousSizes,
+                NOW, SETTLE_TIME);
+
+        assertEquals(2, UploadDirectoryScanner.countComplete(files,
+                completeAt));
+    }
+
+    private File file(String name, int length, long lastModified)
+            throws IOException {
+        File file = new File(directory, name);
+
+        try (RandomAccessFile content = new RandomAccessFile(file, "rw")) {
+            content.setLength(length);
+        }
+
+        file.setLastModified(lastModified);
+        return file;
+    }
+}
@@ -3,6 +3,8 @@ package net.java.cargotracker.scenario;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.Future;
+import javax.ejb.AsyncResult;
 
 import net.java.cargotracker.application.ApplicationEvents;
 import net.java.cargotracker.application.BookingService;
@@ -356,6 +358,12 @@ public class CargoLifecycleScenarioTest {
                                     DateUtil.toDate("2009-03-15")))));
                 }
             }
+
+            public Future<List<Itinerary>> fetchRoutesForSpecificationAsync(
+                    RouteSpecification routeSpecification) {
+                return new AsyncResult<>(
+                        fetchRoutesForSpecification(routeSpecification));
+            }
         };
 
 //        applicationEvents = new SynchronousApplicationEventsStub();
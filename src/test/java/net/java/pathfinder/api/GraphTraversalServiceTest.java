@@ -0,0 +1,152 @@
+package net.java.pathfinder.api;
+
+import static org.junit.Assert.*;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.java.cargotracker.application.util.DateUtil;
+import net.java.cargotracker.domain.model.cargo.Itinerary;
+import net.java.cargotracker.domain.model.cargo.Leg;
+import net.java.cargotracker.domain.model.cargo.RouteSpecification;
+import net.java.cargotracker.domain.model.location.Location;
+import net.java.cargotracker.domain.model.location.SampleLocations;
+import net.java.cargotracker.domain.model.voyage.CarrierMovement;
+import net.java.cargotracker.domain.model.voyage.SampleVoyages;
+import net.java.cargotracker.domain.model.voyage.Voyage;
+import net.java.cargotracker.domain.model.voyage.VoyageNumber;
+import net.java.pathfinder.internal.GraphDao;
+import net.java.pathfinder.internal.TransitGraph;
+import org.junit.Test;
+
+public class GraphTraversalServiceTest {
+
+    // The voyages loaded by the sample data generator.
+    private static final List<Voyage> VOYAGES = Arrays.asList(
+            SampleVoyages.HONGKONG_TO_NEW_YORK,
+            SampleVoyages.NEW_YORK_TO_DALLAS,
+            SampleVoyages.DALLAS_TO_HELSINKI,
+            SampleVoyages.HELSINKI_TO_HONGKONG,
+            SampleVoyages.DALLAS_TO_HELSINKI_ALT);
+    private final Map<String, Location> locations = new HashMap<>();
+    private final GraphTraversalService service = new GraphTraversalService(
+            new GraphDao() {
+                private static final long serialVersionUID = 1L;
+                private final TransitGraph graph = sampleGraph();
+
+                @Override
+                public TransitGraph getGraph() {
+                    return graph;
+                }
+            });
+
+    private TransitGraph sampleGraph() {
+        TransitGraph.Builder builder = new TransitGraph.Builder();
+
+        for (Voyage voyage : VOYAGES) {
+            for (CarrierMovement movement
+                    : voyage.getSchedule().getCarrierMovements()) {
+                builder.addMovement(voyage.getVoyageNumber().getIdString(),
+                        movement.getDepartureLocation().getUnLocode()
+                        .getIdString(),
+                        movement.getArrivalLocation().getUnLocode()
+                        .getIdString(),
+                        movement.getDepartureTime().getTime(),
+                        movement.getArrivalTime().getTime());
+                locations.put(movement.getDepartureLocation().getUnLocode()
+                        .getIdString(), movement.getDepartureLocation());
+                locations.put(movement.getArrivalLocation().getUnLocode()
+                        .getIdString(), movement.getArrivalLocation());
+            }
+        }
+
+        return builder.build();
+    }
+
+    @Test
+    public void testRoutesUnroutedSampleCargo() {
+        // Cargo DEF789 is left for the booking agent to route, when the
+        // sample schedules were still ahead.
+        RouteSpecification routeSpecification = new RouteSpecification(
+                SampleLocations.HONGKONG, SampleLocations.MELBOURNE,
+                DateUtil.toDate("2014-11-18"));
+
+        List<Itinerary> itineraries = route(routeSpecification,
+                "2013-10-01 00:00");
+
+        assertFalse(itineraries.isEmpty());
+
+        for (Itinerary itinerary : itineraries) {
+            assertTrue(routeSpecification.isSatisfiedBy(itinerary));
+        }
+    }
+
+    @Test
+    public void testRoutesThroughConnections() {
+        RouteSpecification routeSpecification = new RouteSpecification(
+                SampleLocations.HONGKONG, SampleLocations.DALLAS,
+                DateUtil.toDate("2013-11-01"));
+
+        List<Itinerary> itineraries = route(routeSpecification,
+                "2013-10-01 00:00");
+
+        assertFalse(itineraries.isEmpty());
+        // Through New York, changing from ship to train.
+        Itinerary itinerary = itineraries.get(0);
+        assertTrue(routeSpecification.isSatisfiedBy(itinerary));
+        assertEquals(2, itinerary.getLegs().size());
+        assertEquals(SampleLocations.NEWYORK,
+                itinerary.getLegs().get(0).getUnloadLocation());
+    }
+
+    @Test
+    public void testDepartureIsRespected() {
+        RouteSpecification routeSpecification = new RouteSpecification(
+                SampleLocations.HONGKONG, SampleLocations.MELBOURNE,
+                DateUtil.toDate("2014-11-18"));
+
+        assertTrue(route(routeSpecification, "2013-10-02 00:00").isEmpty());
+    }
+
+    @Test
+    public void testDepartsFromNowByDefault() {
+        // Every sample voyage has departed by now.
+        RouteSpecification routeSpecification = new RouteSpecification(
+                SampleLocations.HONGKONG, SampleLocations.DALLAS,
+                new Date(System.currentTimeMillis() + 30L * 24 * 60 * 60 * 1000));
+
+        assertTrue(route(routeSpecification, null).isEmpty());
+    }
+
+    private List<Itinerary> route(RouteSpecification routeSpecification,
+            String departure) {
+        List<TransitPath> transitPaths = service.findShortestPath(
+                routeSpecification.getOrigin().getUnLocode().getIdString(),
+                routeSpecification.getDestination().getUnLocode().getIdString(),
+                departure,
+                new SimpleDateFormat(GraphTraversalService.ISO_8601_FORMAT)
+                .format(routeSpecification.getArrivalDeadline()));
+        List<Itinerary> itineraries = new ArrayList<>(transitPaths.size());
+
+        for (TransitPath transitPath : transitPaths) {
+            List<Leg> legs = new ArrayList<>();
+
+            for (TransitEdge edge : transitPath.getTransitEdges()) {
+                legs.add(new Leg(
+                        SampleVoyages.lookup(new VoyageNumber(
+                                        edge.getVoyageNumber())),
+                        locations.get(edge.getFromUnLocode()),
+                        locations.get(edge.getToUnLocode()),
+                        edge.getFromDate(), edge.getToDate()));
+            }
+
+            itineraries.add(new Itinerary(legs));
+        }
+
+        return itineraries;
+    }
+}
@@ -0,0 +1,108 @@
+package net.java.pathfinder.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class TimeDependentPathFinderTest {
+
+    private static final long HOUR = 60 * 60 * 1000;
+
+    private final TransitGraph graph = new TransitGraph.Builder()
+            // Direct, but slow.
+            .addMovement("V100", "CNHKG", "USNYC", 10 * HOUR, 100 * HOUR)
+            // Faster with a transfer in Tokyo.
+            .addMovement("V200", "CNHKG", "JNTKO", 12 * HOUR, 20 * HOUR)
+            .addMovement("V300", "JNTKO", "USNYC", 22 * HOUR, 40 * HOUR)
+            // Leaves Tokyo before V200 arrives, can't be caught.
+            .addMovement("V400", "JNTKO", "USNYC", 18 * HOUR, 30 * HOUR)
+            // Later departure on the same lane.
+            .addMovement("V500", "CNHKG", "JNTKO", 30 * HOUR, 38 * HOUR)
+            .addMovement("V500", "JNTKO", "USNYC", 39 * HOUR, 60 * HOUR)
+            .build();
+    private final TimeDependentPathFinder pathFinder
+            = new TimeDependentPathFinder(graph);
+    private final int hongkong = graph.getLocationId("CNHKG");
+    private final int newYork = graph.getLocationId("USNYC");
+
+    @Test
+    public void testEarliestArrivalHonoursTransferTimes() {
+        int[] path = pathFinder.findEarliestArrival(hongkong, newYork, 0,
+                TimeDependentPathFinder.NO_DEADLINE);
+
+        assertEquals(2, path.length);
+        assertEquals("V200", graph.getVoyageNumber(path[0]));
+        assertEquals("V300", graph.getVoyageNumber(path[1]));
+        assertEquals("JNTKO", graph.getUnLocode(
+                graph.getDepartureLocation(path[1])));
+        assertEquals(40 * HOUR, graph.getArrivalTime(path[1]));
+    }
+
+    @Test
+    public void testDepartureTimeIsRespected() {
+        int[] path = pathFinder.findEarliestArrival(hongkong, newYork,
+                13 * HOUR, TimeDependentPathFinder.NO_DEADLINE);
+
+        assertEquals("V500", graph.getVoyageNumber(path[0]));
+        assertEquals(60 * HOUR, graph.getArrivalTime(path[path.length - 1]));
+    }
+
+    @Test
+    public void testDeadlineIsRespected() {
+        assertEquals(0, pathFinder.findEarliestArrival(hongkong, newYork, 0,
+                40 * HOUR).length);
+        assertEquals(2, pathFinder.findEarliestArrival(hongkong, newYork, 0,
+                40 * HOUR + 1).length);
+    }
+
+    @Test
+    public void testCandidatesDepartSuccessively() {
+        List<int[]> candidates = pathFinder.findPaths(hongkong, newYork, 0,
+                TimeDependentPathFinder.NO_DEADLINE, 5);
+
+        // The direct voyage departs earlier but arrives later, it is dominated.
+        assertEquals(2, candidates.size());
+        assertEquals("V200", graph.getVoyageNumber(candidates.get(0)[0]));
+        assertEquals("V500", graph.getVoyageNumber(candidates.get(1)[0]));
+    }
+
+    @Test
+    public void testUnreachableDestination() {
+        assertEquals(0, pathFinder.findEarliestArrival(newYork, hongkong, 0,
+                TimeDependentPathFinder.NO_DEADLINE).length);
+    }
+
+    @Test
+    public void testDeparturesAreGroupedByLaneAndOrdered() {
+        int tokyo = graph.getLocationId("JNTKO");
+
+        assertEquals(3, graph.getLocationCount());
+        assertEquals(3, graph.getLaneCount());
+        assertEquals(6, graph.getConnectionCount());
+        assertEquals(5, graph.getVoyageCount());
+        assertEquals(graph.firstLane(newYork), graph.firstLane(newYork + 1));
+
+        for (int location = 0; location < graph.getLocationCount(); location++) {
+            for (int lane = graph.firstLane(location);
+                    lane < graph.firstLane(location + 1); lane++) {
+                for (int c = graph.firstConnection(lane);
+                        c < graph.firstConnection(lane + 1); c++) {
+                    assertEquals(location, graph.getDepartureLocation(c));
+                    assertEquals(graph.getLaneDestination(lane),
+                            graph.getArrivalLocation(c));
+
+                    if (c > graph.firstConnection(lane)) {
+                        assertTrue(graph.getDepartureTime(c - 1)
+                                <= graph.getDepartureTime(c));
+                    }
+                }
+            }
+        }
+
+        int tokyoToNewYork = graph.firstLane(tokyo);
+        assertEquals("V300", graph.getVoyageNumber(
+                graph.firstDepartureAtOrAfter(tokyoToNewYork, 19 * HOUR)));
+    }
+}
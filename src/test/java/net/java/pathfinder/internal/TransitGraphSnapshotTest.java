@@ -0,0 +1,101 @@
+package net.java.pathfinder.internal;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TransitGraphSnapshotTest {
+
+    private static final long HOUR = 60 * 60 * 1000;
+    private final TransitGraph.Builder builder = new TransitGraph.Builder()
+            .addMovement("V200", "CNHKG", "JNTKO", 12 * HOUR, 20 * HOUR)
+            .addMovement("V300", "JNTKO", "USNYC", 22 * HOUR, 40 * HOUR)
+            .addMovement("V500", "CNHKG", "JNTKO", 30 * HOUR, 38 * HOUR);
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("transit-graph", ".snapshot");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testMappedGraphEqualsBuiltGraph() throws IOException {
+        TransitGraphSnapshot.write(builder, file);
+        TransitGraph built = builder.build();
+        TransitGraph mapped = TransitGraphSnapshot.map(file);
+
+        assertEquals(built.getLocationCount(), mapped.getLocationCount());
+        assertEquals(built.getVoyageCount(), mapped.getVoyageCount());
+        assertEquals(built.getLaneCount(), mapped.getLaneCount());
+        assertEquals(built.getConnectionCount(), mapped.getConnectionCount());
+
+        for (int c = 0; c < built.getConnectionCount(); c++) {
+            assertEquals(built.getVoyageNumber(c), mapped.getVoyageNumber(c));
+            assertEquals(built.getDepartureTime(c), mapped.getDepartureTime(c));
+            assertEquals(built.getArrivalTime(c), mapped.getArrivalTime(c));
+            assertEquals(built.getUnLocode(built.getDepartureLocation(c)),
+                    mapped.getUnLocode(mapped.getDepartureLocation(c)));
+            assertEquals(built.getUnLocode(built.getArrivalLocation(c)),
+                    mapped.getUnLocode(mapped.getArrivalLocation(c)));
+        }
+
+        int[] path = new TimeDependentPathFinder(mapped).findEarliestArrival(
+                mapped.getLocationId("CNHKG"), mapped.getLocationId("USNYC"),
+                0, TimeDependentPathFinder.NO_DEADLINE);
+        assertEquals(2, path.length);
+        assertEquals(40 * HOUR, mapped.getArrivalTime(path[1]));
+    }
+
+    @Test
+    public void testLongColumnsAreAligned() {
+        // Without connections the columns end where the long columns start.
+        for (int locationCount = 1; locationCount <= 4; locationCount++) {
+            assertEquals(0, TransitGraph.columnsSize(locationCount, 2, 0) % 8);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptSnapshotIsRejected() throws IOException {
+        TransitGraphSnapshot.write(builder, file);
+
+        try (RandomAccessFile snapshot = new RandomAccessFile(file, "rw")) {
+            snapshot.seek(snapshot.length() - 1);
+            int last = snapshot.read();
+            snapshot.seek(snapshot.length() - 1);
+            snapshot.write(last ^ 0xFF);
+        }
+
+        TransitGraphSnapshot.map(file);
+    }
+
+    @Test
+    public void testNewerSnapshotReplacesFile() throws IOException {
+        TransitGraphSnapshot.write(builder, file);
+        TransitGraph before = TransitGraphSnapshot.map(file);
+
+        builder.addMovement("V600", "JNTKO", "CNHKG", 50 * HOUR, 58 * HOUR);
+        TransitGraphSnapshot.write(builder, file);
+
+        assertEquals(3, before.getConnectionCount());
+        assertEquals(4, TransitGraphSnapshot.map(file).getConnectionCount());
+        assertEquals(0, file.getParentFile().listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File candidate) {
+                return candidate.getName().startsWith(file.getName())
+                        && candidate.getName().endsWith(".tmp");
+            }
+        }).length);
+    }
+}